@@ -0,0 +1,22 @@
+package com.smartsalle.main.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+// Authentification JWT portant l'id interne de l'utilisateur (claim "userId"), résolu une fois par jeton
+public class AuthenticatedUserToken extends JwtAuthenticationToken {
+
+    private final Long userId;
+
+    public AuthenticatedUserToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities, Long userId) {
+        super(jwt, authorities);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
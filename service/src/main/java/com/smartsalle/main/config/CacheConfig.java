@@ -0,0 +1,33 @@
+package com.smartsalle.main.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches Caffeine (bornés en taille et en durée) des données de référence qui changent rarement.
+ * Les évictions sont différées après le commit : une lecture concurrente ne peut pas remettre en cache
+ * une valeur que la transaction en cours est en train de modifier.
+ * Les métriques (cache.gets hit/miss, cache.evictions...) sont publiées par l'actuator.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String GYMS = "gyms";           // id -> GymView
+    public static final String GYM_LIST = "gymList";    // liste complète des salles
+    public static final String TRAINERS = "trainers";   // id -> UserView des coachs
+    public static final String USER_ROLES = "userRoles"; // id -> UserRole
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.reference-data.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(GYMS, GYM_LIST, TRAINERS, USER_ROLES);
+        // Noms fixés : pas de cache créé à la volée, chacun a ses métriques dès le démarrage
+        cacheManager.setCacheSpecification(spec);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,48 @@
+package com.smartsalle.main.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Décodeur JWT qui ne vérifie (signature HMAC + validateurs) qu'une fois par jeton :
+ * les requêtes suivantes de la même session lisent le résultat dans JwtAuthenticationCache.
+ * La durée des vérifications réelles est mesurée (security.jwt.verification).
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final JwtAuthenticationCache authenticationCache;
+    private final CustomJwtAuthenticationConverter authenticationConverter;
+    private final Timer verificationTimer;
+
+    public CachingJwtDecoder(JwtDecoder delegate, JwtAuthenticationCache authenticationCache,
+                             CustomJwtAuthenticationConverter authenticationConverter, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.authenticationCache = authenticationCache;
+        this.authenticationConverter = authenticationConverter;
+        this.verificationTimer = Timer.builder("security.jwt.verification")
+                .description("JWT signature and claims verification on cache miss").register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JwtAuthenticationCache.VerifiedToken cached = authenticationCache.get(token);
+        if (cached != null) {
+            return cached.jwt();
+        }
+        long start = System.nanoTime();
+        Jwt jwt;
+        try {
+            jwt = delegate.decode(token);
+        } finally {
+            verificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        authenticationCache.put(authenticationConverter.resolve(jwt));
+        return jwt;
+    }
+}
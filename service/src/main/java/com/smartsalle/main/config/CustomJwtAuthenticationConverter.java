@@ -5,7 +5,6 @@ import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
@@ -18,11 +17,29 @@ public class CustomJwtAuthenticationConverter implements Converter<Jwt, Abstract
 
     private static final String ROLE_CLAIM_NAME = "user_role"; // Ou le nom du claim utilisé par Supabase pour les rôles
     private static final String DEFAULT_ROLE_PREFIX = "ROLE_";
+    private static final String USER_ID_CLAIM_NAME = "userId"; // id de l'utilisateur dans notre table users
+
+    private final JwtAuthenticationCache authenticationCache;
+
+    public CustomJwtAuthenticationConverter(JwtAuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
 
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
-        Collection<GrantedAuthority> authorities = extractAuthorities(jwt);
-        return new JwtAuthenticationToken(jwt, authorities);
+        // Rôles et id déjà extraits lors de la vérification du jeton (CachingJwtDecoder), sinon calculés ici
+        JwtAuthenticationCache.VerifiedToken verified = authenticationCache.get(jwt.getTokenValue());
+        if (verified == null) {
+            verified = resolve(jwt);
+        }
+        // Nouveau jeton d'authentification à chaque requête : Spring Security y attache les détails de la requête
+        return new AuthenticatedUserToken(jwt, verified.authorities(), verified.userId());
+    }
+
+    public JwtAuthenticationCache.VerifiedToken resolve(Jwt jwt) {
+        Object userIdClaim = jwt.getClaim(USER_ID_CLAIM_NAME);
+        Long userId = userIdClaim instanceof Number number ? number.longValue() : null;
+        return new JwtAuthenticationCache.VerifiedToken(jwt, List.copyOf(extractAuthorities(jwt)), userId);
     }
 
     private Collection<GrantedAuthority> extractAuthorities(Jwt jwt) {
@@ -0,0 +1,78 @@
+package com.smartsalle.main.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Jetons déjà vérifiés : valeur du jeton -> JWT décodé, rôles et id interne de l'utilisateur.
+ * Une entrée n'est ajoutée qu'après vérification de la signature et expire au plus tard à l'exp du jeton
+ * (et au plus après max-ttl) : un jeton expiré repasse toujours par la vérification complète.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    private final Cache<String, VerifiedToken> tokens;
+    private final Duration maxTtl;
+
+    public JwtAuthenticationCache(MeterRegistry meterRegistry,
+                                  @Value("${security.jwt.cache.max-size:10000}") long maxSize,
+                                  @Value("${security.jwt.cache.max-ttl:5m}") Duration maxTtl) {
+        this.maxTtl = maxTtl;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        return timeToLive(verified.jwt()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return timeToLive(verified.jwt()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "jwtAuthentications");
+    }
+
+    public VerifiedToken get(String token) {
+        return tokens.getIfPresent(token);
+    }
+
+    public void put(VerifiedToken verified) {
+        tokens.put(verified.jwt().getTokenValue(), verified);
+    }
+
+    private Duration timeToLive(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtl;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        if (remaining.isNegative()) {
+            return Duration.ZERO;
+        }
+        return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+    }
+
+    // userId : claim "userId" (id de notre table users), null s'il est absent du jeton
+    public record VerifiedToken(Jwt jwt, Collection<GrantedAuthority> authorities, Long userId) {
+    }
+}
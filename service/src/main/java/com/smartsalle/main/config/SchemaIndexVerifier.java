@@ -0,0 +1,72 @@
+package com.smartsalle.main.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Vérifie au démarrage que les index attendus par les requêtes des repositories existent
+ * (définis dans db/migration). Un index manquant n'empêche pas le démarrage mais est signalé.
+ */
+@Component
+public class SchemaIndexVerifier {
+
+    private static final Logger LOGGER = LogManager.getLogger(SchemaIndexVerifier.class);
+
+    static final List<String> EXPECTED_INDEXES = List.of(
+            "uk_attendance_records_user_open",
+            "idx_attendance_records_user_check_in_time",
+            "idx_attendance_records_check_in_time_id",
+            "idx_events_status_type_date_time",
+            "idx_events_date_time_id",
+            "uk_event_registrations_event_user",
+            "idx_payments_status_due_date",
+            "idx_payments_user_due_date",
+            "idx_payments_due_date_id",
+            "idx_memberships_gym_user",
+            "idx_users_role_id",
+            "uk_payment_ledger_month_gym_status_currency",
+            "uk_payments_user_idempotency_key",
+            "uk_bookings_session_user_active",
+            "idx_bookings_hold_expires_at",
+            "idx_events_series_date_time",
+            "idx_sessions_series_start_time",
+            "idx_events_gym_date_time",
+            "idx_sessions_gym_start_time",
+            "idx_users_search_text_trgm",
+            "idx_users_search_text_gist",
+            "idx_memberships_user_end_date",
+            "ex_events_instructor_time",
+            "ex_events_location_time",
+            "ex_sessions_trainer_time"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaIndexVerifier(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyIndexes() {
+        try {
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema()", String.class));
+            List<String> missing = EXPECTED_INDEXES.stream().filter(index -> !existing.contains(index)).toList();
+            if (missing.isEmpty()) {
+                LOGGER.info("All {} expected indexes are present", EXPECTED_INDEXES.size());
+            } else {
+                LOGGER.warn("Missing expected indexes (check Flyway migrations): {}", missing);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to verify database indexes: {}", e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.smartsalle.main.config;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,6 +40,7 @@ public class SecurityConfig {
             .authorizeHttpRequests(authorize -> authorize
                 // Configurer les endpoints publics ici si nécessaire (ex: /auth/**, /public/**)
                 // .requestMatchers("/api/auth/**", "/api/public/**").permitAll()
+                .requestMatchers("/ws/**").permitAll() // Handshake WebSocket : le JWT est vérifié à la trame STOMP CONNECT
                 .anyRequest().authenticated() // Toutes les autres requêtes nécessitent une authentification
             )
             .oauth2ResourceServer(oauth2 -> oauth2
@@ -50,10 +52,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Vérification HMAC une seule fois par jeton, résultat réutilisé jusqu'à son expiration (cf. JwtAuthenticationCache)
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(JwtAuthenticationCache jwtAuthenticationCache, MeterRegistry meterRegistry) {
         SecretKey key = new SecretKeySpec(jwtSecret.getBytes(), "HS256");
-        return NimbusJwtDecoder.withSecretKey(key).build();
+        return new CachingJwtDecoder(NimbusJwtDecoder.withSecretKey(key).build(), jwtAuthenticationCache,
+                customJwtAuthenticationConverter, meterRegistry);
     }
 
     // Optionnel: JwtEncoder si le backend doit aussi émettre des JWTs
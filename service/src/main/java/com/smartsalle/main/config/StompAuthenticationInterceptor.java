@@ -0,0 +1,64 @@
+package com.smartsalle.main.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Authentifie la session STOMP à la trame CONNECT (en-tête natif "Authorization: Bearer <jwt>"),
+ * avec le même décodeur (et le même cache) que l'API REST. Seuls les ADMIN et TRAINER s'abonnent aux topics d'occupation.
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> ALLOWED_ROLES = Set.of("ROLE_ADMIN", "ROLE_TRAINER");
+
+    private final JwtDecoder jwtDecoder;
+    private final CustomJwtAuthenticationConverter authenticationConverter;
+
+    public StompAuthenticationInterceptor(JwtDecoder jwtDecoder, CustomJwtAuthenticationConverter authenticationConverter) {
+        this.jwtDecoder = jwtDecoder;
+        this.authenticationConverter = authenticationConverter;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            String authorization = accessor.getFirstNativeHeader("Authorization");
+            if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+                throw new AccessDeniedException("Missing bearer token in STOMP CONNECT frame");
+            }
+            AbstractAuthenticationToken authentication;
+            try {
+                authentication = authenticationConverter.convert(jwtDecoder.decode(authorization.substring(BEARER_PREFIX.length())));
+            } catch (JwtException e) {
+                throw new AccessDeniedException("Invalid bearer token: " + e.getMessage());
+            }
+            boolean allowed = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> ALLOWED_ROLES.contains(authority.getAuthority()));
+            if (!allowed) {
+                throw new AccessDeniedException("Occupancy updates are restricted to admins and trainers");
+            }
+            accessor.setUser(authentication);
+        } else if ((accessor.getCommand() == StompCommand.SUBSCRIBE || accessor.getCommand() == StompCommand.SEND)
+                && accessor.getUser() == null) {
+            throw new AccessDeniedException("STOMP session is not authenticated");
+        }
+        return message;
+    }
+}
@@ -1,12 +1,15 @@
 package com.smartsalle.main.controller;
 
-import com.smartsalle.main.model.AttendanceRecord;
+import com.smartsalle.main.model.AttendanceRecordView;
+import com.smartsalle.main.model.CursorSlice;
+import com.smartsalle.main.repository.specification.KeysetCursor;
 import com.smartsalle.main.service.AttendanceService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -31,24 +34,41 @@ public class AttendanceController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins et Trainers peuvent voir tous les enregistrements de présence
-    public ResponseEntity<Page<AttendanceRecord>> getAllAttendanceRecords(
+    public ResponseEntity<Page<AttendanceRecordView>> getAllAttendanceRecords(
             @RequestParam(required = false) Long memberId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(required = false) String type,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<AttendanceRecord> records = attendanceService.findAllAttendanceRecords(memberId, startDate, endDate, type, page, size);
+        Page<AttendanceRecordView> records = attendanceService.findAllAttendanceRecords(memberId, startDate, endDate, type, page, size);
         return new ResponseEntity<>(records, HttpStatus.OK);
     }
 
+    // Mode curseur (opt-in via le paramètre "cursor", vide pour la première page) : pas de COUNT ni d'OFFSET
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')")
+    public ResponseEntity<CursorSlice<AttendanceRecordView>> scrollAttendanceRecords(
+            @RequestParam(required = false) Long memberId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Slice<AttendanceRecordView> records = attendanceService.scrollAttendanceRecords(memberId, startDate, endDate, type,
+                position.getValueAsLocalDateTime(), position.getId(), size);
+        return new ResponseEntity<>(CursorSlice.of(records, record -> KeysetCursor.encode(record.checkInTime(), record.id())), HttpStatus.OK);
+    }
+
     @PostMapping("/check-in")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\', \'CLIENT\')") // Admin, Trainer ou Client (pour lui-même, à vérifier dans le service)
-    public ResponseEntity<AttendanceRecord> checkIn(@RequestParam Long memberId, @RequestParam String type) {
+    public ResponseEntity<AttendanceRecordView> checkIn(@RequestParam Long memberId, @RequestParam String type,
+                                                        @RequestParam(required = false) Long gymId) {
         // Idéalement, le service devrait vérifier si un CLIENT fait un check-in pour lui-même
         // ou si un ADMIN/TRAINER le fait pour un membre.
         try {
-            AttendanceRecord record = attendanceService.checkIn(memberId, type);
+            AttendanceRecordView record = AttendanceRecordView.from(attendanceService.checkIn(memberId, type, gymId));
             return new ResponseEntity<>(record, HttpStatus.CREATED);
         } catch (IllegalStateException e) {
             LOGGER.warn(e.getMessage());
@@ -58,18 +78,26 @@ public class AttendanceController {
 
     @PostMapping("/check-out")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\', \'CLIENT\')") // Admin, Trainer ou Client (pour lui-même, à vérifier dans le service)
-    public ResponseEntity<AttendanceRecord> checkOut(@RequestParam Long memberId) {
+    public ResponseEntity<AttendanceRecordView> checkOut(@RequestParam Long memberId) {
          // Idéalement, le service devrait vérifier si un CLIENT fait un check-out pour lui-même
-        AttendanceRecord record = attendanceService.checkOut(memberId);
+        AttendanceRecordView record = AttendanceRecordView.from(attendanceService.checkOut(memberId));
         return new ResponseEntity<>(record, HttpStatus.OK);
     }
 
+    @GetMapping("/occupancy")
+    @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Occupation en temps réel, servie depuis l'index en mémoire
+    public ResponseEntity<Map<String, Object>> getCurrentOccupancy() {
+        Map<String, Object> occupancy = attendanceService.getCurrentOccupancy();
+        return new ResponseEntity<>(occupancy, HttpStatus.OK);
+    }
+
     @GetMapping("/stats")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins et Trainers peuvent voir les statistiques de présence
     public ResponseEntity<Map<String, Object>> getAttendanceStats(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        Map<String, Object> stats = attendanceService.getAttendanceStats(startDate, endDate);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean daily) {
+        Map<String, Object> stats = attendanceService.getAttendanceStats(startDate, endDate, daily);
         return new ResponseEntity<>(stats, HttpStatus.OK);
     }
 
@@ -0,0 +1,103 @@
+package com.smartsalle.main.controller;
+
+import com.smartsalle.main.config.AuthenticatedUserToken;
+import com.smartsalle.main.model.BookingStatus;
+import com.smartsalle.main.model.BookingView;
+import com.smartsalle.main.service.BookingService;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sessions/{sessionId}/bookings")
+public class BookingController {
+
+    private static final Logger LOGGER = LogManager.getLogger(BookingController.class);
+
+    private final BookingService bookingService;
+
+    public BookingController(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    // hold=true : place retenue le temps du paiement, à confirmer avant holdExpiresAt
+    @PostMapping
+    @PreAuthorize("hasRole('CLIENT')") // Seuls les Clients réservent une séance
+    public ResponseEntity<BookingView> bookSession(@PathVariable Long sessionId, @RequestParam(defaultValue = "false") boolean hold,
+                                                   Authentication authentication) {
+        BookingView booking = BookingView.from(bookingService.bookSession(sessionId, getUserId(authentication), hold));
+        // 202 : réservation provisoire, pas encore confirmée
+        HttpStatus status = booking.status() == BookingStatus.HELD ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return new ResponseEntity<>(booking, status);
+    }
+
+    @PostMapping("/{bookingId}/confirm")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<BookingView> confirmBooking(@PathVariable Long sessionId, @PathVariable Long bookingId,
+                                                      Authentication authentication) {
+        BookingView booking = BookingView.from(bookingService.confirmBooking(sessionId, bookingId, getUserId(authentication)));
+        return new ResponseEntity<>(booking, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{bookingId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')") // Admin ou le membre titulaire de la réservation
+    public ResponseEntity<Void> cancelBooking(@PathVariable Long sessionId, @PathVariable Long bookingId,
+                                              Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        bookingService.cancelBooking(sessionId, bookingId, admin ? null : getUserId(authentication));
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')") // Admins et Trainers peuvent voir les réservations
+    public ResponseEntity<List<BookingView>> getSessionBookings(@PathVariable Long sessionId) {
+        return new ResponseEntity<>(bookingService.getSessionBookings(sessionId), HttpStatus.OK);
+    }
+
+    // Id interne résolu une fois par jeton lors de l'authentification (cf. JwtAuthenticationCache)
+    private Long getUserId(Authentication authentication) {
+        if (authentication instanceof AuthenticatedUserToken authenticatedUser && authenticatedUser.getUserId() != null) {
+            return authenticatedUser.getUserId();
+        }
+        throw new AccessDeniedException("User ID claim 'userId' not found in JWT.");
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
+        LOGGER.error(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        LOGGER.error(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalStateException(IllegalStateException ex) {
+        LOGGER.warn(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDeniedException(AccessDeniedException ex) {
+        LOGGER.warn("Access denied: {}", ex.getMessage());
+        return new ResponseEntity<>("Access Denied: You do not have permission to perform this action.", HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<String> handleException(Exception ex) {
+        LOGGER.error("An unexpected error occurred: ", ex);
+        return new ResponseEntity<>("An unexpected error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
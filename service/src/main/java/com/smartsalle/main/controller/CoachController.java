@@ -1,6 +1,10 @@
 package com.smartsalle.main.controller;
 
+import com.smartsalle.main.model.CursorSlice;
+import com.smartsalle.main.model.TimeSlot;
 import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserView;
+import com.smartsalle.main.repository.specification.KeysetCursor;
 import com.smartsalle.main.service.CoachService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
@@ -9,12 +13,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List; // Remplacé par Page<User> pour la méthode getAllCoaches
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/coaches")
@@ -32,36 +39,57 @@ public class CoachController {
     @GetMapping
     // Tous les utilisateurs authentifiés peuvent voir la liste des coachs
     @PreAuthorize("isAuthenticated()") 
-    public ResponseEntity<Page<User>> getAllCoaches(
+    public ResponseEntity<Page<UserView>> getAllCoaches(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String email,
             @RequestParam(required = false) String specialty,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> coachesPage = coachService.findAllCoaches(name, email, specialty, pageable);
+        Page<UserView> coachesPage = coachService.findAllCoaches(name, email, specialty, pageable);
         return new ResponseEntity<>(coachesPage, HttpStatus.OK);
     }
 
+    // Mode curseur (opt-in via le paramètre "cursor", vide pour la première page) : pas de COUNT ni d'OFFSET
+    @GetMapping(params = "cursor")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorSlice<UserView>> scrollCoaches(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        Slice<UserView> coaches = coachService.scrollCoaches(KeysetCursor.decode(cursor).getId(), size);
+        return new ResponseEntity<>(CursorSlice.of(coaches, user -> KeysetCursor.encode(null, user.id())), HttpStatus.OK);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole(\'ADMIN\')") // Seuls les Admins peuvent créer des coachs
-    public ResponseEntity<User> createCoach(@RequestBody User coach) {
-        User createdCoach = coachService.createCoach(coach);
+    public ResponseEntity<UserView> createCoach(@RequestBody User coach) {
+        UserView createdCoach = UserView.from(coachService.createCoach(coach));
         return new ResponseEntity<>(createdCoach, HttpStatus.CREATED);
     }
 
     @GetMapping("/{id}")
     // Tous les utilisateurs authentifiés peuvent voir le détail d'un coach
     @PreAuthorize("isAuthenticated()") 
-    public ResponseEntity<User> getCoachById(@PathVariable Long id) {
-        User coach = coachService.findCoachById(id);
+    public ResponseEntity<UserView> getCoachById(@PathVariable Long id) {
+        UserView coach = coachService.findCoachViewById(id);
         return new ResponseEntity<>(coach, HttpStatus.OK);
     }
 
+    // Créneaux sans événement ni séance du coach, pour planifier un cours
+    @GetMapping("/{id}/free-slots")
+    @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')")
+    public ResponseEntity<List<TimeSlot>> getFreeSlots(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "30") int minMinutes) {
+        return new ResponseEntity<>(coachService.findFreeSlots(id, from, to, minMinutes), HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole(\'ADMIN\')") // Seuls les Admins peuvent modifier les coachs
-    public ResponseEntity<User> updateCoach(@PathVariable Long id, @RequestBody User coachDetails) {
-        User updatedCoach = coachService.updateCoach(id, coachDetails);
+    public ResponseEntity<UserView> updateCoach(@PathVariable Long id, @RequestBody User coachDetails) {
+        UserView updatedCoach = UserView.from(coachService.updateCoach(id, coachDetails));
         return new ResponseEntity<>(updatedCoach, HttpStatus.OK);
     }
 
@@ -1,13 +1,19 @@
 package com.smartsalle.main.controller;
 
+import com.smartsalle.main.config.AuthenticatedUserToken;
+import com.smartsalle.main.model.CursorSlice;
 import com.smartsalle.main.model.Event;
-import com.smartsalle.main.model.EventRegistration;
+import com.smartsalle.main.model.EventRegistrationView;
+import com.smartsalle.main.model.EventView;
+import com.smartsalle.main.model.RegistrationStatus;
+import com.smartsalle.main.repository.specification.KeysetCursor;
 import com.smartsalle.main.service.EventService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,38 +42,55 @@ public class EventController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()") // Tous les utilisateurs authentifiés peuvent voir les événements
-    public ResponseEntity<Page<Event>> getAllEvents(
+    public ResponseEntity<Page<EventView>> getAllEvents(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Event> events = eventService.findAllEvents(status, type, startDate, endDate, page, size);
+        Page<EventView> events = eventService.findAllEvents(status, type, startDate, endDate, page, size);
         return new ResponseEntity<>(events, HttpStatus.OK);
     }
 
+    // Mode curseur (opt-in via le paramètre "cursor", vide pour la première page) : pas de COUNT ni d'OFFSET
+    @GetMapping(params = "cursor")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorSlice<EventView>> scrollEvents(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Slice<EventView> events = eventService.scrollEvents(status, type, startDate, endDate, position.getValueAsLocalDateTime(), position.getId(), size);
+        return new ResponseEntity<>(CursorSlice.of(events, event -> KeysetCursor.encode(event.dateTime(), event.id())), HttpStatus.OK);
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins et Trainers peuvent créer des événements
-    public ResponseEntity<Event> createEvent(@RequestBody Event event, @RequestParam(required = false) Long instructorId) {
+    public ResponseEntity<EventView> createEvent(@RequestBody Event event, @RequestParam(required = false) Long instructorId,
+                                                 @RequestParam(required = false) Long gymId) {
         // Si instructorId n'est pas fourni et que l'utilisateur est un TRAINER, on pourrait l'assigner automatiquement.
         // Pour l'instant, on laisse le service gérer la logique d'assignation de l'instructeur.
-        Event createdEvent = eventService.createEvent(event, instructorId);
+        EventView createdEvent = EventView.from(eventService.createEvent(event, instructorId, gymId));
         return new ResponseEntity<>(createdEvent, HttpStatus.CREATED);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()") // Tous les utilisateurs authentifiés peuvent voir le détail d'un événement
-    public ResponseEntity<Event> getEventById(@PathVariable Long id) {
-        Event event = eventService.findEventById(id);
+    public ResponseEntity<EventView> getEventById(@PathVariable Long id) {
+        EventView event = EventView.from(eventService.findEventById(id));
         return new ResponseEntity<>(event, HttpStatus.OK);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins ou Trainers (potentiellement le créateur de l'événement)
-    public ResponseEntity<Event> updateEvent(@PathVariable Long id, @RequestBody Event eventDetails, @RequestParam(required = false) Long instructorId) {
+    public ResponseEntity<EventView> updateEvent(@PathVariable Long id, @RequestBody Event eventDetails, @RequestParam(required = false) Long instructorId,
+                                                 @RequestParam(required = false) Long gymId) {
         // Ajouter une logique dans le service pour vérifier si un TRAINER modifie son propre événement.
-        Event updatedEvent = eventService.updateEvent(id, eventDetails, instructorId);
+        EventView updatedEvent = EventView.from(eventService.updateEvent(id, eventDetails, instructorId, gymId));
         return new ResponseEntity<>(updatedEvent, HttpStatus.OK);
     }
 
@@ -80,15 +103,17 @@ public class EventController {
 
     @PostMapping("/{eventId}/register")
     @PreAuthorize("hasRole(\'CLIENT\')") // Seuls les Clients peuvent s'inscrire aux événements
-    public ResponseEntity<EventRegistration> registerMemberToEvent(@PathVariable Long eventId) {
+    public ResponseEntity<EventRegistrationView> registerMemberToEvent(@PathVariable Long eventId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         Long memberId = getUserIdFromAuthentication(authentication, "CLIENT"); 
         if (memberId == null) {
             // Ce cas devrait être couvert par @PreAuthorize, mais une double vérification est possible
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED); 
         }
-        EventRegistration registration = eventService.registerMemberToEvent(eventId, memberId);
-        return new ResponseEntity<>(registration, HttpStatus.CREATED);
+        EventRegistrationView registration = EventRegistrationView.from(eventService.registerMemberToEvent(eventId, memberId));
+        // 202 : événement complet, le membre est placé en liste d'attente
+        HttpStatus status = registration.status() == RegistrationStatus.WAITLISTED ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return new ResponseEntity<>(registration, status);
     }
 
     @DeleteMapping("/{eventId}/unregister")
@@ -105,12 +130,16 @@ public class EventController {
 
     @GetMapping("/{eventId}/registrations")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins et Trainers peuvent voir les inscriptions
-    public ResponseEntity<List<EventRegistration>> getEventRegistrations(@PathVariable Long eventId) {
-        List<EventRegistration> registrations = eventService.getEventRegistrations(eventId);
+    public ResponseEntity<List<EventRegistrationView>> getEventRegistrations(@PathVariable Long eventId) {
+        List<EventRegistrationView> registrations = eventService.getEventRegistrations(eventId);
         return new ResponseEntity<>(registrations, HttpStatus.OK);
     }
 
     private Long getUserIdFromAuthentication(Authentication authentication, String expectedRole) {
+        // Id résolu une fois par jeton lors de l'authentification (cf. JwtAuthenticationCache)
+        if (authentication instanceof AuthenticatedUserToken authenticatedUser && authenticatedUser.getUserId() != null) {
+            return authenticatedUser.getUserId();
+        }
         if (authentication != null && authentication.getPrincipal() instanceof Jwt) {
             Jwt jwt = (Jwt) authentication.getPrincipal();
             // Vérifier si l'utilisateur a le rôle attendu (déjà fait par @PreAuthorize, mais peut être utile pour la logique interne)
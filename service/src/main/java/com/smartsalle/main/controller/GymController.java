@@ -1,16 +1,41 @@
 package com.smartsalle.main.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.smartsalle.main.model.Gym;
+import com.smartsalle.main.model.GymView;
+import com.smartsalle.main.model.MembershipImportReport;
+import com.smartsalle.main.model.UserView;
+import com.smartsalle.main.model.WeeklyTimetable;
 import com.smartsalle.main.service.GymService;
+import com.smartsalle.main.service.MembershipImportService;
+import com.smartsalle.main.service.MembershipService;
+import com.smartsalle.main.service.TimetableService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.net.ssl.HttpsURLConnection;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -19,20 +44,32 @@ public class GymController{
 
     private static final Logger LOGGER = LogManager.getLogger(GymController.class);
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final GymService gymService;
+    private final MembershipService membershipService;
+    private final MembershipImportService membershipImportService;
+    private final TimetableService timetableService;
+    private final ObjectMapper objectMapper;
 
-    public GymController(GymService gymService) {
+    public GymController(GymService gymService, MembershipService membershipService,
+                         MembershipImportService membershipImportService, TimetableService timetableService,
+                         ObjectMapper objectMapper) {
         this.gymService = gymService;
+        this.membershipService = membershipService;
+        this.membershipImportService = membershipImportService;
+        this.timetableService = timetableService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<Gym> getAllGyms(){
+    public List<GymView> getAllGyms(){
         return gymService.findAllGym();
     }
 
     @PostMapping
-    public ResponseEntity<Gym> postCreateGym(@RequestBody Gym gym){
-        Gym createdGym = gymService.createGym(gym);
+    public ResponseEntity<GymView> postCreateGym(@RequestBody Gym gym){
+        GymView createdGym = GymView.from(gymService.createGym(gym));
         return new ResponseEntity<>(createdGym, HttpStatus.CREATED);
     }
 
@@ -42,14 +79,75 @@ public class GymController{
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    @GetMapping("/${id}")
-    public Gym getGym(@PathVariable long id){
-        return gymService.readGym(id);
+    @GetMapping("/{id}")
+    public GymView getGym(@PathVariable long id){
+        return gymService.readGymView(id);
+    }
+
+    // Planning de la semaine ISO (week=2026-W43, semaine en cours par défaut) ; 304 si If-None-Match correspond à l'ETag
+    @GetMapping("/{gymId}/timetable")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<WeeklyTimetable> getTimetable(@PathVariable long gymId,
+                                                        @RequestParam(required = false) String week,
+                                                        WebRequest webRequest){
+        WeeklyTimetable timetable = timetableService.getWeek(gymId, week);
+        if (webRequest.checkNotModified(timetable.etag())) {
+            return null;
+        }
+        // no-cache : le client garde sa copie mais la revalide à chaque affichage
+        return ResponseEntity.ok()
+                .eTag(timetable.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(timetable);
+    }
+
+    @GetMapping("/{gymId}/members")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')")
+    public ResponseEntity<Page<UserView>> getGymMembers(@PathVariable long gymId,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int size){
+        Page<UserView> members = membershipService.findGymMembers(gymId, PageRequest.of(page, size));
+        return new ResponseEntity<>(members, HttpStatus.OK);
+    }
+
+    // Export NDJSON (Accept: application/x-ndjson) : une ligne JSON par membre, écrite au fil de la lecture du curseur
+    @GetMapping(value = "/{gymId}/members", produces = NDJSON)
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')")
+    public ResponseEntity<StreamingResponseBody> streamGymMembers(@PathVariable long gymId){
+        gymService.readGymView(gymId); // 404 avant d'engager la réponse
+        ObjectWriter writer = objectMapper.writerFor(UserView.class);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            long count = membershipService.streamGymMembers(gymId, member -> {
+                try {
+                    out.write(writer.writeValueAsBytes(member));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            LOGGER.info("Streamed {} members of gym {}", count, gymId);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // Import en masse : CSV (en-tête = champs de MembershipRequest) ou NDJSON, lu au fil de l'eau
+    @PostMapping(value = "/{gymId}/memberships/import", consumes = {"text/csv", NDJSON})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MembershipImportReport> importMemberships(@PathVariable long gymId,
+                                                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                   InputStream body){
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        MembershipImportReport report = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? membershipImportService.importNdjson(gymId, reader)
+                : membershipImportService.importCsv(gymId, reader);
+        return new ResponseEntity<>(report, HttpStatus.OK);
     }
 
     @PutMapping
-    public ResponseEntity<Gym> putGym(@RequestBody Gym gym){
-        Gym updatedGym = gymService.updateGym(gym);
+    public ResponseEntity<GymView> putGym(@RequestBody Gym gym){
+        GymView updatedGym = GymView.from(gymService.updateGym(gym));
         return new ResponseEntity<>(updatedGym, HttpStatus.OK);
     }
 
@@ -65,6 +163,12 @@ public class GymController{
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(org.springframework.security.access.AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDeniedException(org.springframework.security.access.AccessDeniedException ex){
+        LOGGER.warn("Access denied: {}", ex.getMessage());
+        return new ResponseEntity<>("Access Denied: You do not have permission to perform this action.", HttpStatus.FORBIDDEN);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception ex){
         LOGGER.error(ex.getMessage());
@@ -1,6 +1,9 @@
 package com.smartsalle.main.controller;
 
+import com.smartsalle.main.model.CursorSlice;
 import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserView;
+import com.smartsalle.main.repository.specification.KeysetCursor;
 import com.smartsalle.main.service.MemberService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
@@ -9,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,37 +33,48 @@ public class MemberController {
         this.memberService = memberService;
     }
 
+    // Recherche (name, email : nom, email ou téléphone, sans accents, classés par pertinence) ; membershipStatus : ACTIVE, EXPIRED ou NONE
     @GetMapping
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')") // Admins et Trainers peuvent lister les membres
-    public ResponseEntity<Page<User>> getAllMembers(
+    public ResponseEntity<Page<UserView>> getAllMembers(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String email,
             @RequestParam(required = false) String membershipStatus,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> membersPage = memberService.findAllMembers(name, email, membershipStatus, pageable);
+        Page<UserView> membersPage = memberService.findAllMembers(name, email, membershipStatus, pageable);
         return new ResponseEntity<>(membersPage, HttpStatus.OK);
     }
 
+    // Mode curseur (opt-in via le paramètre "cursor", vide pour la première page) : pas de COUNT ni d'OFFSET
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\')")
+    public ResponseEntity<CursorSlice<UserView>> scrollMembers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        Slice<UserView> members = memberService.scrollMembers(KeysetCursor.decode(cursor).getId(), size);
+        return new ResponseEntity<>(CursorSlice.of(members, user -> KeysetCursor.encode(null, user.id())), HttpStatus.OK);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole(\'ADMIN\')") // Seuls les Admins peuvent créer des membres
-    public ResponseEntity<User> createMember(@RequestBody User member) {
-        User createdMember = memberService.createMember(member);
+    public ResponseEntity<UserView> createMember(@RequestBody User member) {
+        UserView createdMember = UserView.from(memberService.createMember(member));
         return new ResponseEntity<>(createdMember, HttpStatus.CREATED);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole(\'ADMIN\', \'TRAINER\') or (hasRole(\'CLIENT\') and #id == authentication.principal.claims[\'sub\'])") // Admin/Trainer ou le membre lui-même
-    public ResponseEntity<User> getMemberById(@PathVariable Long id) {
-        User member = memberService.findMemberById(id);
+    public ResponseEntity<UserView> getMemberById(@PathVariable Long id) {
+        UserView member = UserView.from(memberService.findMemberById(id));
         return new ResponseEntity<>(member, HttpStatus.OK);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole(\'ADMIN\') or (hasRole(\'CLIENT\') and #id == authentication.principal.claims[\'sub\'])") // Admin ou le membre lui-même
-    public ResponseEntity<User> updateMember(@PathVariable Long id, @RequestBody User memberDetails) {
-        User updatedMember = memberService.updateMember(id, memberDetails);
+    public ResponseEntity<UserView> updateMember(@PathVariable Long id, @RequestBody User memberDetails) {
+        UserView updatedMember = UserView.from(memberService.updateMember(id, memberDetails));
         return new ResponseEntity<>(updatedMember, HttpStatus.OK);
     }
 
@@ -1,13 +1,17 @@
 package com.smartsalle.main.controller;
 
-import com.smartsalle.main.model.Payment;
+import com.smartsalle.main.model.CursorSlice;
+import com.smartsalle.main.model.PaymentCreation;
 import com.smartsalle.main.model.PaymentRequest;
+import com.smartsalle.main.model.PaymentView;
+import com.smartsalle.main.repository.specification.KeysetCursor;
 import com.smartsalle.main.service.PaymentService;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +19,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -32,56 +37,104 @@ public class PaymentController {
 
     @PostMapping
     @PreAuthorize("hasRole(\"ADMIN\") or hasRole(\"CLIENT\")") // Admin peut créer des paiements, Client peut initier son propre paiement
-    public ResponseEntity<Payment> createPayment(@RequestBody PaymentRequest paymentRequest) {
+    public ResponseEntity<PaymentView> createPayment(@RequestBody PaymentRequest paymentRequest,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         // Ajouter une vérification pour s'assurer qu'un CLIENT ne crée un paiement que pour lui-même si nécessaire
-        Payment payment = paymentService.createPayment(paymentRequest);
+        PaymentCreation creation = paymentService.createPayment(paymentRequest, idempotencyKey);
+        PaymentView payment = PaymentView.from(creation.payment());
+        if (creation.replayed()) {
+            // Nouvel essai d'une requête déjà traitée : paiement d'origine, rien n'est recréé
+            return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(payment);
+        }
         return new ResponseEntity<>(payment, HttpStatus.CREATED);
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\")") // Admins et Trainers peuvent voir tous les paiements
-    public ResponseEntity<Page<Payment>> getAllPayments(
+    public ResponseEntity<Page<PaymentView>> getAllPayments(
             @RequestParam(required = false) Long memberId,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Page<Payment> payments = paymentService.findAllPayments(memberId, status, startDate, endDate, page, size);
+        Page<PaymentView> payments = paymentService.findAllPayments(memberId, status, startDate, endDate, page, size);
         return new ResponseEntity<>(payments, HttpStatus.OK);
     }
 
+    // Mode curseur (opt-in via le paramètre "cursor", vide pour la première page) : pas de COUNT ni d'OFFSET
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\")")
+    public ResponseEntity<CursorSlice<PaymentView>> scrollPayments(
+            @RequestParam(required = false) Long memberId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Slice<PaymentView> payments = paymentService.scrollPayments(memberId, status, startDate, endDate, position.getValueAsLocalDate(), position.getId(), size);
+        return new ResponseEntity<>(CursorSlice.of(payments, payment -> KeysetCursor.encode(payment.dueDate(), payment.id())), HttpStatus.OK);
+    }
+
+    // Historique complet d'un membre, échéance la plus récente en premier
+    @GetMapping("/member/{memberId}")
+    @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\") or (hasRole(\"CLIENT\") and @paymentService.isMember(authentication, #memberId))") // Admin/Trainer ou le membre lui-même
+    public ResponseEntity<List<PaymentView>> getMemberPayments(@PathVariable Long memberId) {
+        return new ResponseEntity<>(paymentService.findMemberPayments(memberId), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\") or (hasRole(\"CLIENT\") and @paymentService.isOwner(authentication, #id))") // Admin/Trainer ou le client propriétaire du paiement
-    public ResponseEntity<Payment> getPaymentById(@PathVariable Long id) {
-        Payment payment = paymentService.findPaymentById(id);
+    public ResponseEntity<PaymentView> getPaymentById(@PathVariable Long id) {
+        PaymentView payment = PaymentView.from(paymentService.findPaymentById(id));
         return new ResponseEntity<>(payment, HttpStatus.OK);
     }
 
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole(\"ADMIN\")") // Seul l'Admin peut mettre à jour le statut d'un paiement
-    public ResponseEntity<Payment> updatePaymentStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
+    public ResponseEntity<PaymentView> updatePaymentStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
         String status = statusUpdate.get("status");
         if (status == null || status.trim().isEmpty()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        Payment updatedPayment = paymentService.updatePaymentStatus(id, status);
+        PaymentView updatedPayment = PaymentView.from(paymentService.updatePaymentStatus(id, status));
         return new ResponseEntity<>(updatedPayment, HttpStatus.OK);
     }
 
     @GetMapping("/stats")
     @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\")") // Admins et Trainers peuvent voir les statistiques de paiement
-    public ResponseEntity<Map<String, Object>> getPaymentStats() {
-        Map<String, Object> stats = paymentService.getPaymentStats();
+    public ResponseEntity<Map<String, Object>> getPaymentStats(@RequestParam(required = false) String currency) {
+        Map<String, Object> stats = paymentService.getPaymentStats(currency);
         return new ResponseEntity<>(stats, HttpStatus.OK);
     }
 
+    // Série mensuelle des revenus [from, to), lue dans le grand livre ; par défaut les 12 derniers mois payés
+    @GetMapping("/stats/revenue")
+    @PreAuthorize("hasAnyRole(\"ADMIN\", \"TRAINER\")")
+    public ResponseEntity<List<Map<String, Object>>> getRevenueSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long gymId,
+            @RequestParam(defaultValue = "PAID") String status,
+            @RequestParam(required = false) String currency) {
+        LocalDate end = to != null ? to : LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        LocalDate start = from != null ? from : end.minusMonths(12);
+        return new ResponseEntity<>(paymentService.getRevenueSeries(start, end, gymId, status, currency), HttpStatus.OK);
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
         LOGGER.error(ex.getMessage());
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalStateException(IllegalStateException ex) {
+        LOGGER.warn(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
         LOGGER.error(ex.getMessage());
@@ -0,0 +1,92 @@
+package com.smartsalle.main.controller;
+
+import com.smartsalle.main.model.ScheduleSeriesView;
+import com.smartsalle.main.model.SeriesRequest;
+import com.smartsalle.main.model.SeriesUpdateRequest;
+import com.smartsalle.main.service.ScheduleSeriesService;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/series")
+public class SeriesController {
+
+    private static final Logger LOGGER = LogManager.getLogger(SeriesController.class);
+
+    private final ScheduleSeriesService scheduleSeriesService;
+
+    public SeriesController(ScheduleSeriesService scheduleSeriesService) {
+        this.scheduleSeriesService = scheduleSeriesService;
+    }
+
+    // Crée la série et toutes ses occurrences (événements ou séances) en une transaction
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')")
+    public ResponseEntity<ScheduleSeriesView> createSeries(@RequestBody SeriesRequest request) {
+        return new ResponseEntity<>(scheduleSeriesService.createSeries(request), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ScheduleSeriesView> getSeries(@PathVariable Long id) {
+        return new ResponseEntity<>(scheduleSeriesService.getSeries(id), HttpStatus.OK);
+    }
+
+    // Modifie les occurrences à partir de "from" (maintenant si absent)
+    @PutMapping("/{id}/occurrences")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRAINER')")
+    public ResponseEntity<Map<String, Object>> updateFutureOccurrences(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestBody SeriesUpdateRequest update) {
+        return new ResponseEntity<>(scheduleSeriesService.updateFutureOccurrences(id, from, update), HttpStatus.OK);
+    }
+
+    // Annule les occurrences à partir de "from" (maintenant si absent)
+    @DeleteMapping("/{id}/occurrences")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> cancelFutureOccurrences(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from) {
+        return new ResponseEntity<>(scheduleSeriesService.cancelFutureOccurrences(id, from), HttpStatus.OK);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
+        LOGGER.error(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        LOGGER.error(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalStateException(IllegalStateException ex) {
+        LOGGER.warn(ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(org.springframework.security.access.AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDeniedException(org.springframework.security.access.AccessDeniedException ex) {
+        LOGGER.warn("Access denied: {}", ex.getMessage());
+        return new ResponseEntity<>("Access Denied: You do not have permission to perform this action.", HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<String> handleException(Exception ex) {
+        LOGGER.error("An unexpected error occurred: ", ex);
+        return new ResponseEntity<>("An unexpected error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
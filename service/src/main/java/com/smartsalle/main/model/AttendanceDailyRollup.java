@@ -0,0 +1,39 @@
+package com.smartsalle.main.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Agrégats de présence par jour et par type, maintenus à chaque check-out
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "attendance_daily_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_daily_rollups_day_type", columnNames = {"day", "type"}))
+public class AttendanceDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_daily_rollups_id_seq")
+    @SequenceGenerator(name = "attendance_daily_rollups_id_seq", sequenceName = "attendance_daily_rollups_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String type; // "" lorsque le check-in n'a pas de type
+
+    @Column(nullable = false)
+    private long visits;
+
+    @Column(nullable = false)
+    private long distinctVisitors;
+
+    @Column(nullable = false)
+    private long durationSum; // en minutes
+
+    @Column(nullable = false)
+    private long durationCount;
+}
@@ -0,0 +1,16 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+// Passage poussé aux écrans d'accueil (WebSocket) une fois la transaction validée
+public record AttendanceEvent(
+        Type type,
+        Long attendanceRecordId,
+        Long memberId,
+        Long gymId,
+        LocalDateTime time) {
+
+    public enum Type {
+        CHECK_IN, CHECK_OUT
+    }
+}
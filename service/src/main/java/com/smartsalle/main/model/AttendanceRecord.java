@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class AttendanceRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_records_id_seq")
+    @SequenceGenerator(name = "attendance_records_id_seq", sequenceName = "attendance_records_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,6 +30,10 @@ public class AttendanceRecord {
 
     private String type; // e.g., "Gym Session", "Yoga Class"
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gym_id") // Salle du passage, si elle est connue à l'entrée
+    private Gym gym;
+
     private Integer durationInMinutes; // Calculated, can be null if not checked out
 
     public AttendanceRecord(User user, LocalDateTime checkInTime, String type) {
@@ -0,0 +1,20 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+public record AttendanceRecordView(
+        Long id,
+        Long memberId,
+        Long gymId,
+        LocalDateTime checkInTime,
+        LocalDateTime checkOutTime,
+        String type,
+        Integer durationInMinutes) {
+
+    public static AttendanceRecordView from(AttendanceRecord attendanceRecord) {
+        return new AttendanceRecordView(attendanceRecord.getId(), attendanceRecord.getUser().getId(),
+                attendanceRecord.getGym() != null ? attendanceRecord.getGym().getId() : null,
+                attendanceRecord.getCheckInTime(), attendanceRecord.getCheckOutTime(),
+                attendanceRecord.getType(), attendanceRecord.getDurationInMinutes());
+    }
+}
@@ -2,26 +2,42 @@ package com.smartsalle.main.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
 
 @Entity
 @Data
 @Table(name = "bookings")
+// Plan de chargement des réservations d'une séance : membre et paiement joints dans la même requête
+@NamedEntityGraph(name = "Booking.member", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("payment")
+})
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_id_seq")
+    @SequenceGenerator(name = "bookings_id_seq", sequenceName = "bookings_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
     private Session session;
 
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
 
+    // Échéance d'une réservation HELD ; null une fois confirmée
+    private LocalDateTime holdExpiresAt;
+
+    // Côté inverse : toujours chargé par Hibernate, à inclure dans les plans de chargement pour éviter un SELECT par ligne
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL)
     private Payment payment;
 }
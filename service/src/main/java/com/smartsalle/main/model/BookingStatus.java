@@ -1,5 +1,5 @@
 package com.smartsalle.main.model;
 
 public enum BookingStatus {
-    CONFIRMED, CANCELLED
+    HELD, CONFIRMED, CANCELLED, EXPIRED // HELD : place retenue jusqu'à Booking.holdExpiresAt, puis EXPIRED si non confirmée
 }
@@ -0,0 +1,16 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+public record BookingView(
+        Long id,
+        Long sessionId,
+        Long memberId,
+        BookingStatus status,
+        LocalDateTime holdExpiresAt) {
+
+    public static BookingView from(Booking booking) {
+        return new BookingView(booking.getId(), booking.getSession().getId(), booking.getUser().getId(),
+                booking.getStatus(), booking.getHoldExpiresAt());
+    }
+}
@@ -1,9 +1,12 @@
 package com.smartsalle.main.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -17,7 +20,8 @@ import java.util.List;
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_id_seq")
+    @SequenceGenerator(name = "events_id_seq", sequenceName = "events_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,8 +39,20 @@ public class Event {
     @Column(nullable = false)
     private Integer capacity;
 
+    // Places réservées : modifié uniquement par les mises à jour atomiques de EventRepository (reserveSeat / releaseSeat)
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Integer registeredCount = 0;
+
     private String location;
 
+    // Salle de l'événement, optionnelle (planning hebdomadaire par salle)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gym_id")
+    private Gym gym;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "instructor_id") // Assuming User with TRAINER role
     private User instructor;
@@ -47,12 +63,26 @@ public class Event {
     @Column(nullable = false)
     private String status; // e.g., "upcoming", "ongoing", "completed", "cancelled"
 
+    // Série récurrente d'origine, null pour un événement ponctuel
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "series_id")
+    private ScheduleSeries series;
+
+    // Jamais sérialisée ni parcourue par equals/toString : le listing s'appuie sur registeredCount
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<EventRegistration> registrations = new ArrayList<>();
 
-    // Convenience method to get number of registered users
-    public Integer getRegisteredCount() {
-        return registrations.size();
+    public Integer getAvailableSeats() {
+        if (capacity == null || registeredCount == null) {
+            return null;
+        }
+        return Math.max(capacity - registeredCount, 0);
     }
 }
 
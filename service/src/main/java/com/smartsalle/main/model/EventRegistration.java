@@ -11,11 +11,13 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "event_registrations")
+@Table(name = "event_registrations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_event_registrations_event_user", columnNames = {"event_id", "user_id"}))
 public class EventRegistration {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_registrations_id_seq")
+    @SequenceGenerator(name = "event_registrations_id_seq", sequenceName = "event_registrations_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,10 +31,19 @@ public class EventRegistration {
     @Column(nullable = false)
     private LocalDateTime registrationTime;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RegistrationStatus status = RegistrationStatus.REGISTERED; // WAITLISTED : en attente d'une place, ordre FIFO sur registrationTime
+
     public EventRegistration(Event event, User user) {
+        this(event, user, RegistrationStatus.REGISTERED);
+    }
+
+    public EventRegistration(Event event, User user, RegistrationStatus status) {
         this.event = event;
         this.user = user;
         this.registrationTime = LocalDateTime.now();
+        this.status = status;
     }
 }
 
@@ -0,0 +1,16 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+public record EventRegistrationView(
+        Long id,
+        Long eventId,
+        Long memberId,
+        LocalDateTime registrationTime,
+        RegistrationStatus status) {
+
+    public static EventRegistrationView from(EventRegistration registration) {
+        return new EventRegistrationView(registration.getId(), registration.getEvent().getId(),
+                registration.getUser().getId(), registration.getRegistrationTime(), registration.getStatus());
+    }
+}
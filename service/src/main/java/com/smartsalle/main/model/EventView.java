@@ -0,0 +1,29 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+// Vue de lecture d'un événement : la salle et l'instructeur sont référencés par leur id, les inscriptions par leur nombre
+public record EventView(
+        Long id,
+        String title,
+        String description,
+        LocalDateTime dateTime,
+        Integer durationInMinutes,
+        Integer capacity,
+        Integer registeredCount,
+        Integer availableSeats,
+        String location,
+        Long gymId,
+        Long instructorId,
+        String type,
+        String status) {
+
+    public static EventView from(Event event) {
+        // getId() sur le proxy de l'instructeur ne déclenche pas de chargement
+        Long instructorId = event.getInstructor() != null ? event.getInstructor().getId() : null;
+        Long gymId = event.getGym() != null ? event.getGym().getId() : null;
+        return new EventView(event.getId(), event.getTitle(), event.getDescription(), event.getDateTime(),
+                event.getDurationInMinutes(), event.getCapacity(), event.getRegisteredCount(), event.getAvailableSeats(),
+                event.getLocation(), gymId, instructorId, event.getType(), event.getStatus());
+    }
+}
@@ -13,7 +13,8 @@ import java.util.List;
 @AllArgsConstructor
 public class Gym {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_id_seq")
+    @SequenceGenerator(name = "gym_id_seq", sequenceName = "gym_id_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -23,9 +24,13 @@ public class Gym {
     private String email;
     private LocalDateTime created_at;
 
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "gym")
     private List<Membership> memberships;
 
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "gym")
     private List<Session> sessions;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.smartsalle.main.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+// Vue de lecture d'une salle, sans les adhésions ni les séances
+public record GymView(
+        Long id,
+        String name,
+        String address,
+        String city,
+        String phone,
+        String email,
+        @JsonProperty("created_at") LocalDateTime createdAt) {
+
+    public static GymView from(Gym gym) {
+        return new GymView(gym.getId(), gym.getName(), gym.getAddress(), gym.getCity(),
+                gym.getPhone(), gym.getEmail(), gym.getCreated_at());
+    }
+}
@@ -3,7 +3,9 @@ package com.smartsalle.main.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDate;
 
@@ -14,20 +16,24 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class Membership {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "memberships_id_seq")
+    @SequenceGenerator(name = "memberships_id_seq", sequenceName = "memberships_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "gym_id", nullable = false)
     private Gym gym;
 
     private LocalDate startDate;
     private LocalDate endDate;
 
+    // Côté inverse : toujours chargé par Hibernate, à inclure dans les plans de chargement pour éviter un SELECT par ligne
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToOne(mappedBy = "membership", cascade = CascadeType.ALL)
     private Payment payment;
 }
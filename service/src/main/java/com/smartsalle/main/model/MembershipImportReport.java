@@ -0,0 +1,15 @@
+package com.smartsalle.main.model;
+
+import java.util.List;
+
+// Bilan d'un import d'adhésions : compteurs globaux et erreurs ligne par ligne (limitées aux premières)
+public record MembershipImportReport(
+        long rows,
+        long imported,
+        long usersCreated,
+        long failed,
+        List<RowError> errors) {
+
+    public record RowError(long line, String email, String message) {
+    }
+}
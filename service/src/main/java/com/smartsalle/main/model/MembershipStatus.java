@@ -0,0 +1,6 @@
+package com.smartsalle.main.model;
+
+// Statut d'adhésion d'un membre à la date du jour : ACTIVE (au moins une adhésion en cours), EXPIRED (adhésions toutes terminées), NONE
+public enum MembershipStatus {
+    ACTIVE, EXPIRED, NONE
+}
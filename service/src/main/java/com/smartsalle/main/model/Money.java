@@ -0,0 +1,52 @@
+package com.smartsalle.main.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Montant exact en unités mineures (centimes pour USD/EUR) et code devise ISO 4217.
+ * Les sommes se font sur des long (Math.addExact : un dépassement lève une erreur au lieu de boucler),
+ * la conversion décimale n'a lieu qu'aux bords de l'API.
+ */
+public record Money(long minorUnits, String currency) {
+
+    public Money {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is required");
+        }
+        currency = currency.toUpperCase();
+    }
+
+    // Rejette les montants plus précis que la devise (ex. 10.005 USD) plutôt que d'arrondir silencieusement
+    public static Money of(BigDecimal amount, String currency) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        int digits = fractionDigits(currency);
+        try {
+            return new Money(amount.setScale(digits).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount for " + currency + ": " + amount.toPlainString());
+        }
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0L, currency);
+    }
+
+    public Money plus(long otherMinorUnits) {
+        return new Money(Math.addExact(minorUnits, otherMinorUnits), currency);
+    }
+
+    public BigDecimal toDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    public static int fractionDigits(String currency) {
+        try {
+            return Math.max(Currency.getInstance(currency.toUpperCase()).getDefaultFractionDigits(), 0);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown currency: " + currency);
+        }
+    }
+}
@@ -12,10 +12,17 @@ import java.time.LocalDate;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "payments")
+@Table(name = "payments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payments_user_idempotency_key", columnNames = {"user_id", "idempotency_key"}))
+// Plan de chargement de l'historique de paiements d'un membre : adhésion et réservation jointes
+@NamedEntityGraph(name = "Payment.detail", attributeNodes = {
+        @NamedAttributeNode("membership"),
+        @NamedAttributeNode("booking")
+})
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_id_seq")
+    @SequenceGenerator(name = "payments_id_seq", sequenceName = "payments_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,9 +33,19 @@ public class Payment {
     @JoinColumn(name = "membership_id") // A payment might not always be for a membership
     private Membership membership;
 
-    @Column(nullable = false)
-    private Double amount;
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id") // Paiement d'une réservation de séance, le cas échéant
+    private Booking booking;
+
+    // Montant en unités mineures de la devise (cf. Money) : sommes exactes et arithmétique entière en SQL
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
 
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    // Obligatoire : le mois d'échéance range le paiement dans le grand livre (payment_ledger)
+    @Column(nullable = false)
     private LocalDate dueDate; // Added for pending payments, as seen in frontend mock
 
     private LocalDateTime paymentDate; // Date when payment was made (paidAt in frontend)
@@ -38,5 +55,17 @@ public class Payment {
 
     @Column(nullable = false)
     private String status; // e.g., "PENDING", "PAID", "FAILED" - align with frontend needs
+
+    @Column(name = "idempotency_key")
+    private String idempotencyKey; // en-tête Idempotency-Key de la requête de création, le cas échéant
+
+    public Money getMoney() {
+        return new Money(amountMinor, currency);
+    }
+
+    public void setMoney(Money money) {
+        this.amountMinor = money.minorUnits();
+        this.currency = money.currency();
+    }
 }
 
@@ -0,0 +1,5 @@
+package com.smartsalle.main.model;
+
+// Résultat d'une création de paiement : replayed si la clé d'idempotence correspondait à un paiement déjà créé
+public record PaymentCreation(Payment payment, boolean replayed) {
+}
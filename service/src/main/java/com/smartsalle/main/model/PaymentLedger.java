@@ -0,0 +1,39 @@
+package com.smartsalle.main.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Agrégats de paiements par mois (dueDate), salle, statut et devise, maintenus à chaque création et changement de statut
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "payment_ledger",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_ledger_month_gym_status_currency", columnNames = {"month", "gym_id", "status", "currency"}))
+public class PaymentLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_ledger_id_seq")
+    @SequenceGenerator(name = "payment_ledger_id_seq", sequenceName = "payment_ledger_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate month; // premier jour du mois
+
+    @Column(name = "gym_id", nullable = false)
+    private Long gymId; // 0 lorsque le paiement n'est rattaché à aucune salle
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(nullable = false)
+    private long paymentCount;
+
+    @Column(nullable = false)
+    private long amountMinor; // unités mineures de la devise (cf. Money)
+}
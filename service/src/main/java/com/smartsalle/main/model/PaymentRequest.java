@@ -1,12 +1,14 @@
 package com.smartsalle.main.model;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class PaymentRequest {
     private Long userId;
     private Long membershipId;
-    private Double amount;
+    private BigDecimal amount; // décimal exact (ex. 49.99), converti en unités mineures de la devise
+    private String currency; // code ISO 4217, devise par défaut de l'application si absent
     private PaymentMethod paymentMethod;
     private String status;
     private LocalDate dueDate;
@@ -21,10 +23,14 @@ public class PaymentRequest {
         return membershipId;
     }
 
-    public Double getAmount() {
+    public BigDecimal getAmount() {
         return amount;
     }
 
+    public String getCurrency() {
+        return currency;
+    }
+
     public PaymentMethod getPaymentMethod() {
         return paymentMethod;
     }
@@ -50,10 +56,14 @@ public class PaymentRequest {
         this.membershipId = membershipId;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(BigDecimal amount) {
         this.amount = amount;
     }
 
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
     public void setPaymentMethod(PaymentMethod paymentMethod) {
         this.paymentMethod = paymentMethod;
     }
@@ -0,0 +1,27 @@
+package com.smartsalle.main.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Vue de lecture d'un paiement : membre, adhésion et réservation sont référencés par leur id
+public record PaymentView(
+        Long id,
+        Long memberId,
+        Long membershipId,
+        Long bookingId,
+        BigDecimal amount,
+        long amountMinor,
+        String currency,
+        LocalDate dueDate,
+        LocalDateTime paymentDate,
+        PaymentMethod paymentMethod,
+        String status) {
+
+    public static PaymentView from(Payment payment) {
+        return new PaymentView(payment.getId(), payment.getUser().getId(),
+                payment.getMembership() != null ? payment.getMembership().getId() : null,
+                payment.getBooking() != null ? payment.getBooking().getId() : null,
+                payment.getMoney().toDecimal(), payment.getAmountMinor(), payment.getCurrency(), payment.getDueDate(), payment.getPaymentDate(), payment.getPaymentMethod(), payment.getStatus());
+    }
+}
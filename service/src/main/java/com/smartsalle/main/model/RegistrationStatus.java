@@ -0,0 +1,5 @@
+package com.smartsalle.main.model;
+
+public enum RegistrationStatus {
+    REGISTERED, WAITLISTED
+}
@@ -0,0 +1,62 @@
+package com.smartsalle.main.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Règle de récurrence d'une série ; les occurrences sont générées à la création (events / sessions avec series_id)
+@Entity
+@Data
+@Table(name = "schedule_series")
+public class ScheduleSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "schedule_series_id_seq")
+    @SequenceGenerator(name = "schedule_series_id_seq", sequenceName = "schedule_series_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SeriesKind kind;
+
+    @Column(nullable = false)
+    private String title;
+
+    private String type;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gym_id")
+    private Gym gym;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trainer_id")
+    private User trainer;
+
+    private String location;
+    private Integer capacity;
+
+    // Jours de la semaine séparés par des virgules (ex. "MONDAY,THURSDAY")
+    @Column(nullable = false)
+    private String daysOfWeek;
+
+    @Column(nullable = false)
+    private LocalTime startTime;
+
+    @Column(nullable = false)
+    private Integer durationInMinutes;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalDate untilDate;
+
+    // Dates exclues (ISO, séparées par des virgules)
+    @Column(columnDefinition = "TEXT")
+    private String exceptionDates;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.smartsalle.main.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+// Vue d'une série ; occurrences : nombre d'occurrences non annulées
+public record ScheduleSeriesView(
+        Long id,
+        SeriesKind kind,
+        String title,
+        String type,
+        Long gymId,
+        Long trainerId,
+        String location,
+        Integer capacity,
+        List<DayOfWeek> daysOfWeek,
+        LocalTime startTime,
+        Integer durationInMinutes,
+        LocalDate startDate,
+        LocalDate untilDate,
+        List<LocalDate> exceptions,
+        long occurrences) {
+
+    public static ScheduleSeriesView from(ScheduleSeries series, long occurrences) {
+        return new ScheduleSeriesView(series.getId(), series.getKind(), series.getTitle(), series.getType(),
+                series.getGym() != null ? series.getGym().getId() : null,
+                series.getTrainer() != null ? series.getTrainer().getId() : null,
+                series.getLocation(), series.getCapacity(),
+                Arrays.stream(series.getDaysOfWeek().split(",")).map(DayOfWeek::valueOf).toList(),
+                series.getStartTime(), series.getDurationInMinutes(), series.getStartDate(), series.getUntilDate(),
+                series.getExceptionDates() == null || series.getExceptionDates().isEmpty() ? List.of()
+                        : Arrays.stream(series.getExceptionDates().split(",")).map(LocalDate::parse).toList(),
+                occurrences);
+    }
+}
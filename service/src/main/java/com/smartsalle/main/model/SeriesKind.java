@@ -0,0 +1,6 @@
+package com.smartsalle.main.model;
+
+// Occurrences d'une série : événements (inscriptions) ou séances (réservations)
+public enum SeriesKind {
+    EVENT, SESSION
+}
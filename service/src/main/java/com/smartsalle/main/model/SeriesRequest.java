@@ -0,0 +1,26 @@
+package com.smartsalle.main.model;
+
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Création d'une série : chaque jour de daysOfWeek entre startDate et untilDate inclus, hors exceptions, à startTime
+@Data
+public class SeriesRequest {
+    private SeriesKind kind;
+    private String title;
+    private String type; // type d'événement (kind EVENT)
+    private Long gymId; // obligatoire pour les séances (kind SESSION)
+    private Long trainerId;
+    private String location; // lieu des événements ; les séances n'en ont pas
+    private Integer capacity; // capacité des événements, maxParticipants des séances (null : sans limite)
+    private List<DayOfWeek> daysOfWeek;
+    private LocalTime startTime;
+    private Integer durationInMinutes;
+    private LocalDate startDate;
+    private LocalDate untilDate;
+    private List<LocalDate> exceptions;
+}
@@ -0,0 +1,16 @@
+package com.smartsalle.main.model;
+
+import lombok.Data;
+
+import java.time.LocalTime;
+
+// Modification des occurrences futures d'une série : seuls les champs renseignés sont appliqués
+@Data
+public class SeriesUpdateRequest {
+    private String title;
+    private Long trainerId;
+    private String location;
+    private LocalTime startTime; // nouvelle heure de début, la date de chaque occurrence est conservée
+    private Integer durationInMinutes;
+    private Integer capacity; // jamais en dessous du nombre d'inscrits / de réservations d'une occurrence
+}
@@ -3,7 +3,11 @@ package com.smartsalle.main.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -11,20 +15,23 @@ import java.util.List;
 
 @Entity
 @Data
+@NoArgsConstructor
+@RequiredArgsConstructor
 @Table(name = "sessions")
 public class Session {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sessions_id_seq")
+    @SequenceGenerator(name = "sessions_id_seq", sequenceName = "sessions_id_seq", allocationSize = 50)
     private Long id;
 
     @NonNull
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "gym_id", nullable = false)
     private Gym gym;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trainer_id")
     private User trainer;
 
@@ -32,6 +39,28 @@ public class Session {
     private LocalDateTime endTime;
     private Integer maxParticipants;
 
+    // Places réservées : modifié uniquement par les mises à jour atomiques de SessionRepository (reserveSeat / releaseSeats)
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Integer bookedCount = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SessionStatus status = SessionStatus.SCHEDULED;
+
+    // Série récurrente d'origine, null pour une séance ponctuelle
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "series_id")
+    private ScheduleSeries series;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL)
     private List<Booking> bookings = new ArrayList<>();
+
+    public Integer getAvailableSeats() {
+        if (maxParticipants == null || bookedCount == null) {
+            return null;
+        }
+        return Math.max(maxParticipants - bookedCount, 0);
+    }
 }
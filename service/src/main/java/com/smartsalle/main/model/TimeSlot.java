@@ -0,0 +1,7 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+// Créneau [start, end)
+public record TimeSlot(LocalDateTime start, LocalDateTime end) {
+}
@@ -0,0 +1,43 @@
+package com.smartsalle.main.model;
+
+import java.time.LocalDateTime;
+
+// Ligne du planning : un événement ou une séance, avec le nom du coach et les places restantes (null : sans limite)
+public record TimetableEntry(
+        SeriesKind kind,
+        Long id,
+        String title,
+        String type,
+        LocalDateTime start,
+        LocalDateTime end,
+        Long trainerId,
+        String trainerName,
+        String location,
+        Integer capacity,
+        Integer remainingSeats) {
+
+    public static TimetableEntry from(Event event) {
+        User instructor = event.getInstructor();
+        return new TimetableEntry(SeriesKind.EVENT, event.getId(), event.getTitle(), event.getType(),
+                event.getDateTime(), event.getDateTime().plusMinutes(event.getDurationInMinutes()),
+                instructor != null ? instructor.getId() : null, displayName(instructor),
+                event.getLocation(), event.getCapacity(), event.getAvailableSeats());
+    }
+
+    public static TimetableEntry from(Session session) {
+        User trainer = session.getTrainer();
+        return new TimetableEntry(SeriesKind.SESSION, session.getId(), session.getName(), null,
+                session.getStartTime(), session.getEndTime(),
+                trainer != null ? trainer.getId() : null, displayName(trainer),
+                null, session.getMaxParticipants(), session.getAvailableSeats());
+    }
+
+    private static String displayName(User user) {
+        if (user == null) {
+            return null;
+        }
+        String name = ((user.getFirstName() != null ? user.getFirstName() : "") + " "
+                + (user.getLastName() != null ? user.getLastName() : "")).trim();
+        return name.isEmpty() ? null : name;
+    }
+}
@@ -0,0 +1,17 @@
+package com.smartsalle.main.model;
+
+// Vue de lecture d'un utilisateur (membre ou coach) : ni mot de passe, ni collections
+public record UserView(
+        Long id,
+        String email,
+        String firstName,
+        String lastName,
+        String phone,
+        String organization,
+        UserRole role) {
+
+    public static UserView from(User user) {
+        return new UserView(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getPhone(), user.getOrganization(), user.getRole());
+    }
+}
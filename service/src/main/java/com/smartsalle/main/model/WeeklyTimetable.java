@@ -0,0 +1,17 @@
+package com.smartsalle.main.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Planning d'une salle sur une semaine ISO (lundi au dimanche) ; etag calculé sur le contenu, renvoyé en en-tête
+public record WeeklyTimetable(
+        Long gymId,
+        String week,
+        LocalDate weekStart,
+        List<TimetableEntry> entries,
+        LocalDateTime generatedAt,
+        @JsonIgnore String etag) {
+}
@@ -11,14 +11,15 @@ import java.util.List;
 @AllArgsConstructor
 public class WorkoutPlan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workout_plan_id_seq")
+    @SequenceGenerator(name = "workout_plan_id_seq", sequenceName = "workout_plan_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trainer_id")
     private User trainer;
 
@@ -31,6 +32,8 @@ public class WorkoutPlan {
     @Enumerated(EnumType.STRING)
     private WorkoutPlanStatus status;
 
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "workoutPlan")
     private List<Exercise> exercises;
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.smartsalle.main.repository;
+
+import com.smartsalle.main.model.AttendanceDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AttendanceDailyRollupRepository extends JpaRepository<AttendanceDailyRollup, Long> {
+
+    List<AttendanceDailyRollup> findAllByDayGreaterThanEqualAndDayLessThanOrderByDayAsc(LocalDate from, LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(r.visits), 0) AS visits, COALESCE(SUM(r.durationSum), 0) AS durationSum, COALESCE(SUM(r.durationCount), 0) AS durationCount " +
+            "FROM AttendanceDailyRollup r WHERE r.day >= :from AND r.day < :to")
+    AttendanceTotals sumByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Incrément atomique de la ligne (jour, type), créée si elle n'existe pas encore
+    @Modifying
+    @Query(value = "INSERT INTO attendance_daily_rollups (day, type, visits, distinct_visitors, duration_sum, duration_count) " +
+            "VALUES (:day, :type, 1, :newVisitor, :duration, :durationCount) " +
+            "ON CONFLICT (day, type) DO UPDATE SET " +
+            "visits = attendance_daily_rollups.visits + 1, " +
+            "distinct_visitors = attendance_daily_rollups.distinct_visitors + EXCLUDED.distinct_visitors, " +
+            "duration_sum = attendance_daily_rollups.duration_sum + EXCLUDED.duration_sum, " +
+            "duration_count = attendance_daily_rollups.duration_count + EXCLUDED.duration_count", nativeQuery = true)
+    void increment(@Param("day") LocalDate day, @Param("type") String type, @Param("newVisitor") long newVisitor,
+                   @Param("duration") long duration, @Param("durationCount") long durationCount);
+}
@@ -2,9 +2,8 @@ package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.AttendanceRecord;
 import com.smartsalle.main.model.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,30 +13,30 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<AttendanceRecord, Long> {
-
-    Page<AttendanceRecord> findAllByUser(User user, Pageable pageable);
-
-    Page<AttendanceRecord> findAllByCheckInTimeBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
+public interface AttendanceRepository extends JpaRepository<AttendanceRecord, Long>, JpaSpecificationExecutor<AttendanceRecord> {
 
     @Query("SELECT ar FROM AttendanceRecord ar WHERE ar.user = :user AND ar.checkOutTime IS NULL ORDER BY ar.checkInTime DESC")
     Optional<AttendanceRecord> findLastActiveCheckInByUser(@Param("user") User user);
 
-    // Méthode pour filtrer par utilisateur et période
-    Page<AttendanceRecord> findByUserAndCheckInTimeBetween(User user, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    // Méthode pour filtrer par type et période
-    Page<AttendanceRecord> findByTypeAndCheckInTimeBetween(String type, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    // Méthode pour filtrer par utilisateur, type et période
-    Page<AttendanceRecord> findByUserAndTypeAndCheckInTimeBetween(User user, String type, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    // Chargement de l'index d'occupation : [memberId, attendanceRecordId, checkInTime, gymId]
+    @Query("SELECT ar.user.id, ar.id, ar.checkInTime, g.id FROM AttendanceRecord ar LEFT JOIN ar.gym g WHERE ar.checkOutTime IS NULL")
+    List<Object[]> findAllActiveCheckIns();
 
     // Pour les statistiques
-    @Query("SELECT COUNT(DISTINCT ar.user) FROM AttendanceRecord ar WHERE ar.checkInTime >= :start AND ar.checkInTime < :end")
-    long countDistinctUsersByCheckInTimeBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT AVG(ar.durationInMinutes) FROM AttendanceRecord ar WHERE ar.durationInMinutes IS NOT NULL AND ar.checkInTime >= :start AND ar.checkInTime < :end")
-    Double getAverageDurationInMinutesByCheckInTimeBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT COUNT(DISTINCT ar.user) FROM AttendanceRecord ar WHERE ar.checkInTime >= :start AND ar.checkInTime < :end " +
+            "AND ar.checkOutTime IS NOT NULL")
+    long countDistinctUsersWithCompletedVisitBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Visites terminées, somme et nombre de durées sur une période, en une seule requête (même définition que les agrégats journaliers)
+    @Query("SELECT COUNT(ar) AS visits, COALESCE(SUM(ar.durationInMinutes), 0) AS durationSum, COUNT(ar.durationInMinutes) AS durationCount " +
+            "FROM AttendanceRecord ar WHERE ar.checkInTime >= :start AND ar.checkInTime < :end AND ar.checkOutTime IS NOT NULL")
+    AttendanceTotals aggregateCompletedByCheckInTimeBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Vrai si le membre a déjà une autre visite terminée ce jour-là pour ce type (agrégat des visiteurs distincts)
+    @Query("SELECT COUNT(ar) > 0 FROM AttendanceRecord ar WHERE ar.user = :user AND COALESCE(ar.type, '') = :type " +
+            "AND ar.checkInTime >= :start AND ar.checkInTime < :end AND ar.checkOutTime IS NOT NULL AND ar.id <> :excludedId")
+    boolean existsOtherCompletedVisit(@Param("user") User user, @Param("type") String type, @Param("start") LocalDateTime start,
+                                      @Param("end") LocalDateTime end, @Param("excludedId") Long excludedId);
 
 }
 
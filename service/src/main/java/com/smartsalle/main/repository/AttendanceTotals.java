@@ -0,0 +1,11 @@
+package com.smartsalle.main.repository;
+
+// Projection des agrégats de présence (visites et durées cumulées sur une période)
+public interface AttendanceTotals {
+
+    Long getVisits();
+
+    Long getDurationSum();
+
+    Long getDurationCount();
+}
@@ -1,7 +1,42 @@
 package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Booking;
+import com.smartsalle.main.model.BookingStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+
+    // Réservations d'une séance avec leurs membres, en une seule requête
+    @EntityGraph("Booking.member")
+    List<Booking> findBySessionIdOrderByIdAsc(Long sessionId);
+
+    // Confirme une réservation provisoire de ce membre si elle n'a pas expiré ; retourne 0 sinon
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = com.smartsalle.main.model.BookingStatus.CONFIRMED, b.holdExpiresAt = NULL " +
+            "WHERE b.id = :id AND b.user.id = :memberId AND b.status = com.smartsalle.main.model.BookingStatus.HELD " +
+            "AND b.holdExpiresAt > :now")
+    int confirmHold(@Param("id") Long id, @Param("memberId") Long memberId, @Param("now") LocalDateTime now);
+
+    // Annule une réservation encore active ; 0 si elle a déjà été annulée ou a expiré entre-temps
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = com.smartsalle.main.model.BookingStatus.CANCELLED, b.holdExpiresAt = NULL " +
+            "WHERE b.id = :id AND b.status IN :active")
+    int cancelIfActive(@Param("id") Long id, @Param("active") Collection<BookingStatus> active);
+
+    // (id, holdExpiresAt) des réservations provisoires, pour recharger la roue d'expiration au démarrage
+    @Query("SELECT b.id, b.holdExpiresAt FROM Booking b WHERE b.status = com.smartsalle.main.model.BookingStatus.HELD")
+    List<Object[]> findAllHolds();
+
+    @Query("SELECT b.id FROM Booking b WHERE b.status = com.smartsalle.main.model.BookingStatus.HELD " +
+            "AND b.holdExpiresAt < :before ORDER BY b.holdExpiresAt")
+    List<Long> findExpiredHoldIds(@Param("before") LocalDateTime before, Pageable pageable);
 }
@@ -2,8 +2,13 @@ package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Event;
 import com.smartsalle.main.model.EventRegistration;
+import com.smartsalle.main.model.RegistrationStatus;
 import com.smartsalle.main.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,5 +26,10 @@ public interface EventRegistrationRepository extends JpaRepository<EventRegistra
     boolean existsByEventAndUser(Event event, User user);
 
     long countByEvent(Event event);
+
+    // Prochain membre en liste d'attente ; SKIP LOCKED pour que deux désinscriptions simultanées promeuvent deux membres différents
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    Optional<EventRegistration> findFirstByEventIdAndStatusOrderByRegistrationTimeAscIdAsc(Long eventId, RegistrationStatus status);
 }
 
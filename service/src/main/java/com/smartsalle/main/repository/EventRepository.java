@@ -1,9 +1,9 @@
 package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Event;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,25 +12,29 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
-
-    Page<Event> findAllByStatus(String status, Pageable pageable);
-
-    Page<Event> findAllByType(String type, Pageable pageable);
-
-    Page<Event> findAllByDateTimeBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    @Query("SELECT e FROM Event e WHERE e.status = :status AND e.type = :type")
-    Page<Event> findAllByStatusAndType(@Param("status") String status, @Param("type") String type, Pageable pageable);
-
-    @Query("SELECT e FROM Event e WHERE e.status = :status AND e.dateTime BETWEEN :start AND :end")
-    Page<Event> findAllByStatusAndDateTimeBetween(@Param("status") String status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Pageable pageable);
-
-    @Query("SELECT e FROM Event e WHERE e.type = :type AND e.dateTime BETWEEN :start AND :end")
-    Page<Event> findAllByTypeAndDateTimeBetween(@Param("type") String type, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Pageable pageable);
-
-    @Query("SELECT e FROM Event e WHERE e.status = :status AND e.type = :type AND e.dateTime BETWEEN :start AND :end")
-    Page<Event> findAllByStatusAndTypeAndDateTimeBetween(@Param("status") String status, @Param("type") String type, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Pageable pageable);
-
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+
+    // Réserve une place si l'événement est à venir et non complet ; retourne 0 sinon
+    @Modifying
+    @Query("UPDATE Event e SET e.registeredCount = e.registeredCount + 1 " +
+            "WHERE e.id = :id AND e.registeredCount < e.capacity AND LOWER(e.status) = 'upcoming'")
+    int reserveSeat(@Param("id") Long id);
+
+    // (id, instructorId, location, dateTime, durationInMinutes) des événements non annulés qui se terminent après since
+    @Query("SELECT e.id, i.id, e.location, e.dateTime, e.durationInMinutes FROM Event e LEFT JOIN e.instructor i " +
+            "WHERE LOWER(e.status) NOT IN ('cancelled', 'completed') AND e.dateTime > :since")
+    List<Object[]> findScheduledSlots(@Param("since") LocalDateTime since);
+
+    // Événements non annulés d'une salle sur une période, avec leur instructeur (planning hebdomadaire)
+    @Query("SELECT e FROM Event e LEFT JOIN FETCH e.instructor " +
+            "WHERE e.gym.id = :gymId AND e.dateTime >= :from AND e.dateTime < :to AND LOWER(e.status) <> 'cancelled' " +
+            "ORDER BY e.dateTime, e.id")
+    List<Event> findTimetable(@Param("gymId") Long gymId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(e) FROM Event e WHERE e.series.id = :seriesId AND LOWER(e.status) <> 'cancelled'")
+    long countActiveBySeriesId(@Param("seriesId") Long seriesId);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.registeredCount = e.registeredCount - 1 WHERE e.id = :id AND e.registeredCount > 0")
+    int releaseSeat(@Param("id") Long id);
 }
-
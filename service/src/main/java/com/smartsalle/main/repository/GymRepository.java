@@ -1,9 +1,18 @@
 package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Gym;
+import com.smartsalle.main.model.GymView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface GymRepository extends JpaRepository<Gym, Long> {
+
+    // Seules les colonnes de la vue sont sélectionnées, sans toucher aux adhésions ni aux séances
+    @Query("SELECT new com.smartsalle.main.model.GymView(g.id, g.name, g.address, g.city, g.phone, g.email, g.created_at) " +
+            "FROM Gym g ORDER BY g.id")
+    List<GymView> findAllViews();
 }
@@ -1,13 +1,35 @@
 package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Membership;
-import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserView;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MembershipRepository extends JpaRepository<Membership, Long> {
-     List<Membership> findByGymId(Long gymId);
+
+    // Membres distincts d'une salle : EXISTS plutôt qu'une jointure, un membre avec plusieurs adhésions n'apparaît qu'une fois
+    String GYM_MEMBERS_WHERE = "FROM User u WHERE EXISTS (SELECT 1 FROM Membership m WHERE m.user = u AND m.gym.id = :gymId)";
+
+    String GYM_MEMBER_VIEWS = "SELECT new com.smartsalle.main.model.UserView(u.id, u.email, u.firstName, u.lastName, u.phone, u.organization, u.role) "
+            + GYM_MEMBERS_WHERE + " ORDER BY u.id";
+
+    @Query(value = GYM_MEMBER_VIEWS, countQuery = "SELECT COUNT(u) " + GYM_MEMBERS_WHERE)
+    Page<UserView> findGymMembers(@Param("gymId") Long gymId, Pageable pageable);
+
+    // Curseur côté serveur (fetch size) : les lignes sont lues par lots au fil du parcours, jamais toutes en mémoire
+    @Query(GYM_MEMBER_VIEWS)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    Stream<UserView> streamGymMembers(@Param("gymId") Long gymId);
 }
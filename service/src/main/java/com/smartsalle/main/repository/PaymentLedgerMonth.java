@@ -0,0 +1,13 @@
+package com.smartsalle.main.repository;
+
+import java.time.LocalDate;
+
+// Projection d'un point de la série mensuelle de revenus
+public interface PaymentLedgerMonth {
+
+    LocalDate getMonth();
+
+    Long getPayments();
+
+    Long getAmountMinor();
+}
@@ -0,0 +1,36 @@
+package com.smartsalle.main.repository;
+
+import com.smartsalle.main.model.PaymentLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PaymentLedgerRepository extends JpaRepository<PaymentLedger, Long> {
+
+    @Query("SELECT l.status AS status, l.currency AS currency, SUM(l.paymentCount) AS payments, SUM(l.amountMinor) AS amountMinor " +
+            "FROM PaymentLedger l WHERE l.currency = :currency GROUP BY l.status, l.currency")
+    List<PaymentLedgerTotals> sumByStatus(@Param("currency") String currency);
+
+    @Query("SELECT l.month AS month, SUM(l.paymentCount) AS payments, SUM(l.amountMinor) AS amountMinor FROM PaymentLedger l " +
+            "WHERE l.month >= :from AND l.month < :to AND l.status = :status AND l.currency = :currency " +
+            "AND (:gymId IS NULL OR l.gymId = :gymId) " +
+            "GROUP BY l.month ORDER BY l.month")
+    List<PaymentLedgerMonth> sumByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("status") String status,
+                                        @Param("currency") String currency, @Param("gymId") Long gymId);
+
+    // Ajout (ou retrait, avec des valeurs négatives) atomique sur la ligne (mois, salle, statut, devise), créée au besoin
+    @Modifying
+    @Query(value = "INSERT INTO payment_ledger (month, gym_id, status, currency, payment_count, amount_minor) " +
+            "VALUES (:month, :gymId, :status, :currency, :count, :amountMinor) " +
+            "ON CONFLICT (month, gym_id, status, currency) DO UPDATE SET " +
+            "payment_count = payment_ledger.payment_count + EXCLUDED.payment_count, " +
+            "amount_minor = payment_ledger.amount_minor + EXCLUDED.amount_minor", nativeQuery = true)
+    void increment(@Param("month") LocalDate month, @Param("gymId") long gymId, @Param("status") String status,
+                   @Param("currency") String currency, @Param("count") long count, @Param("amountMinor") long amountMinor);
+}
@@ -0,0 +1,13 @@
+package com.smartsalle.main.repository;
+
+// Projection des agrégats du grand livre des paiements (nombre et montant cumulé en unités mineures, par statut et devise)
+public interface PaymentLedgerTotals {
+
+    String getStatus();
+
+    String getCurrency();
+
+    Long getPayments();
+
+    Long getAmountMinor();
+}
@@ -2,49 +2,47 @@ package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Payment;
 import com.smartsalle.main.model.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
 
-    Page<Payment> findAllByUser(User user, Pageable pageable);
+    // Historique d'un membre avec adhésions et réservations, en une seule requête
+    @EntityGraph("Payment.detail")
+    List<Payment> findByUserIdOrderByDueDateDesc(Long userId);
 
-    Page<Payment> findAllByStatus(String status, Pageable pageable);
+    boolean existsByIdAndUserId(Long id, Long userId);
 
-    Page<Payment> findAllByDueDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
+    // SELECT ... FOR UPDATE : le statut lu reste celui de la ligne jusqu'au commit (changement de statut et grand livre)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> findByIdForUpdate(@Param("id") Long id);
 
-    // Find by user and status
-    Page<Payment> findAllByUserAndStatus(User user, String status, Pageable pageable);
-    
-    // Find by user and due date range
-    Page<Payment> findAllByUserAndDueDateBetween(User user, LocalDate startDate, LocalDate endDate, Pageable pageable);
+    @Query("SELECT p.id FROM Payment p WHERE p.user.id = :userId AND p.idempotencyKey = :idempotencyKey")
+    Optional<Long> findIdByUserIdAndIdempotencyKey(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey);
 
-    // Find by status and due date range
-    Page<Payment> findAllByStatusAndDueDateBetween(String status, LocalDate startDate, LocalDate endDate, Pageable pageable);
+    // For statistics : sommes entières en unités mineures, une devise à la fois
+    @Query("SELECT SUM(p.amountMinor) FROM Payment p WHERE p.currency = :currency")
+    Long sumAmountMinor(@Param("currency") String currency);
 
-    // Find by user, status, and due date range
-    Page<Payment> findAllByUserAndStatusAndDueDateBetween(User user, String status, LocalDate startDate, LocalDate endDate, Pageable pageable);
+    @Query("SELECT SUM(p.amountMinor) FROM Payment p WHERE p.status = :status AND p.currency = :currency")
+    Long sumAmountMinorByStatus(@Param("status") String status, @Param("currency") String currency);
 
-    // For statistics
-    @Query("SELECT SUM(p.amount) FROM Payment p")
-    Double sumTotalAmount();
+    @Query("SELECT SUM(p.amountMinor) FROM Payment p WHERE p.user = :user AND p.currency = :currency")
+    Long sumAmountMinorByUser(@Param("user") User user, @Param("currency") String currency);
 
-    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = :status")
-    Double sumTotalAmountByStatus(@Param("status") String status);
-
-    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.user = :user")
-    Double sumTotalAmountByUser(@Param("user") User user);
-
-    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.user = :user AND p.status = :status")
-    Double sumTotalAmountByUserAndStatus(@Param("user") User user, @Param("status") String status);
+    @Query("SELECT SUM(p.amountMinor) FROM Payment p WHERE p.user = :user AND p.status = :status AND p.currency = :currency")
+    Long sumAmountMinorByUserAndStatus(@Param("user") User user, @Param("status") String status, @Param("currency") String currency);
 
 }
 
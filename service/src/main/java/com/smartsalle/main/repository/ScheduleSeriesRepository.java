@@ -0,0 +1,7 @@
+package com.smartsalle.main.repository;
+
+import com.smartsalle.main.model.ScheduleSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ScheduleSeriesRepository extends JpaRepository<ScheduleSeries, Long> {
+}
@@ -1,7 +1,41 @@
 package com.smartsalle.main.repository;
 
 import com.smartsalle.main.model.Session;
+import com.smartsalle.main.model.SessionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface SessionRepository extends JpaRepository<Session, Long> {
+
+    // Réserve une place si la séance est programmée, n'a pas commencé et n'est pas complète (maxParticipants null : sans limite) ; retourne 0 sinon
+    @Modifying
+    @Query("UPDATE Session s SET s.bookedCount = s.bookedCount + 1 " +
+            "WHERE s.id = :id AND s.status = com.smartsalle.main.model.SessionStatus.SCHEDULED " +
+            "AND (s.maxParticipants IS NULL OR s.bookedCount < s.maxParticipants) " +
+            "AND (s.startTime IS NULL OR s.startTime > :now)")
+    int reserveSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // (id, trainerId, startTime, endTime) des séances programmées avec coach qui se terminent après since
+    @Query("SELECT s.id, s.trainer.id, s.startTime, s.endTime FROM Session s " +
+            "WHERE s.status = com.smartsalle.main.model.SessionStatus.SCHEDULED " +
+            "AND s.trainer IS NOT NULL AND s.startTime IS NOT NULL AND s.endTime > :since")
+    List<Object[]> findScheduledSlots(@Param("since") LocalDateTime since);
+
+    // Séances programmées d'une salle sur une période, avec leur coach (planning hebdomadaire)
+    @Query("SELECT s FROM Session s LEFT JOIN FETCH s.trainer " +
+            "WHERE s.gym.id = :gymId AND s.startTime >= :from AND s.startTime < :to " +
+            "AND s.status = com.smartsalle.main.model.SessionStatus.SCHEDULED " +
+            "ORDER BY s.startTime, s.id")
+    List<Session> findTimetable(@Param("gymId") Long gymId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    long countBySeriesIdAndStatus(Long seriesId, SessionStatus status);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.bookedCount = s.bookedCount - :count WHERE s.id = :id AND s.bookedCount >= :count")
+    int releaseSeats(@Param("id") Long id, @Param("count") int count);
 }
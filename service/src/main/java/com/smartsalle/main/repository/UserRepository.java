@@ -5,16 +5,23 @@ import com.smartsalle.main.model.UserRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
 
-    Page<User> findByRole(UserRole role, Pageable pageable);
+    // Projection (ex. UserView) : seules les colonnes de la vue sont sélectionnées
+    <T> Page<T> findByRole(UserRole role, Pageable pageable, Class<T> type);
 
     Optional<User> findByIdAndRole(Long id, UserRole role);
+
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    Optional<UserRole> findRoleById(@Param("id") Long id);
 }
 
@@ -0,0 +1,54 @@
+package com.smartsalle.main.repository.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Briques de filtres dynamiques partagées par les recherches paginées.
+ * Chaque méthode retourne null lorsque le filtre n'est pas fourni, ce que
+ * {@link Specification#allOf(Specification[])} ignore : toutes les combinaisons de filtres sont ainsi couvertes.
+ */
+public final class FilterSpecifications {
+
+    private FilterSpecifications() {
+    }
+
+    public static <T> Specification<T> equal(String attribute, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    // Bornes inclusives, chacune optionnelle
+    public static <T, Y extends Comparable<? super Y>> Specification<T> between(String attribute, Y from, Y to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThanOrEqualTo(root.get(attribute), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            return cb.between(root.get(attribute), from, to);
+        };
+    }
+
+    /**
+     * Condition de "seek" pour un tri décroissant sur (attribute, id) :
+     * les lignes strictement après la dernière ligne lue, sans OFFSET.
+     * attribute doit être une colonne NOT NULL : une ligne à valeur nulle ne serait jamais dépassée par le "seek".
+     */
+    public static <T, Y extends Comparable<? super Y>> Specification<T> seekDescending(String attribute, Y lastValue, Long lastId) {
+        if (lastValue == null && lastId == null) {
+            return null;
+        }
+        if (lastValue == null || lastId == null) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get(attribute), lastValue),
+                cb.and(cb.equal(root.get(attribute), lastValue), cb.lessThan(root.get("id"), lastId)));
+    }
+}
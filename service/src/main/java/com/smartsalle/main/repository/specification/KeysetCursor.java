@@ -0,0 +1,73 @@
+package com.smartsalle.main.repository.specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Curseur opaque de pagination par clé : encode la valeur de tri et l'id de la dernière ligne lue.
+ * Les clients le renvoient tel quel pour obtenir la page suivante.
+ * La valeur de tri ne peut pas être nulle : un curseur sans valeur renverrait la première page en boucle.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String value;
+    private final Long id;
+
+    private KeysetCursor(String value, Long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public static String encode(Object value, Long id) {
+        Objects.requireNonNull(value, "Keyset pagination requires a NOT NULL sort column");
+        String raw = value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Un curseur vide ou absent correspond à la première page
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return new KeysetCursor(null, null);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid pagination cursor.");
+            }
+            String value = raw.substring(0, separator);
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Invalid pagination cursor.");
+            }
+            return new KeysetCursor(value, Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) { // inclut NumberFormatException et les erreurs Base64
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getValueAsLocalDateTime() {
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+    public LocalDate getValueAsLocalDate() {
+        try {
+            return value != null ? LocalDate.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartsalle.main.repository.specification;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+
+/**
+ * Pagination par clé (keyset) : tri décroissant sur (sortAttribute, id), lecture de size + 1 lignes
+ * pour savoir s'il existe une page suivante, sans OFFSET ni requête COUNT.
+ * sortAttribute doit correspondre à une colonne NOT NULL (payments.due_date, events.date_time,
+ * attendance_records.check_in_time) : les valeurs nulles ne sont pas gérées par le curseur.
+ */
+public final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    public static <T, Y extends Comparable<? super Y>> Slice<T> fetch(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+                                                                      String sortAttribute, Y lastValue, Long lastId, int size) {
+        Sort sort = Sort.by(Sort.Direction.DESC, sortAttribute).and(Sort.by(Sort.Direction.DESC, "id"));
+        return fetch(repository, Specification.allOf(filter, FilterSpecifications.seekDescending(sortAttribute, lastValue, lastId)), sort, size);
+    }
+
+    // Tri sur l'id seul (listes sans colonne de tri métier)
+    public static <T> Slice<T> fetchById(JpaSpecificationExecutor<T> repository, Specification<T> filter, Long lastId, int size) {
+        Specification<T> seek = lastId == null ? null : (root, query, cb) -> cb.lessThan(root.get("id"), lastId);
+        return fetch(repository, Specification.allOf(filter, seek), Sort.by(Sort.Direction.DESC, "id"), size);
+    }
+
+    private static <T> Slice<T> fetch(JpaSpecificationExecutor<T> repository, Specification<T> specification, Sort sort, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be greater than zero.");
+        }
+        List<T> rows = repository.findBy(specification, query -> query.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), hasNext);
+    }
+}
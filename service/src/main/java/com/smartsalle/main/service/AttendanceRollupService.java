@@ -0,0 +1,95 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.AttendanceDailyRollup;
+import com.smartsalle.main.model.AttendanceRecord;
+import com.smartsalle.main.repository.AttendanceDailyRollupRepository;
+import com.smartsalle.main.repository.AttendanceRepository;
+import com.smartsalle.main.repository.AttendanceTotals;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintient la table attendance_daily_rollups (visites, visiteurs distincts et durées par jour et par type)
+ * et répond aux statistiques de présence : les jours complets passés sont lus dans les agrégats,
+ * les bords de période partiels et la journée en cours sont calculés en direct sur attendance_records.
+ * Dans les deux cas, seules les visites terminées (check-out enregistré) sont comptées.
+ * Le contenu initial est reconstruit depuis attendance_records par la migration V19.
+ */
+@Service
+public class AttendanceRollupService {
+
+    private final AttendanceDailyRollupRepository rollupRepository;
+    private final AttendanceRepository attendanceRepository;
+
+    public AttendanceRollupService(AttendanceDailyRollupRepository rollupRepository, AttendanceRepository attendanceRepository) {
+        this.rollupRepository = rollupRepository;
+        this.attendanceRepository = attendanceRepository;
+    }
+
+    // Appelé dans la transaction du check-out, une fois la durée calculée
+    @Transactional
+    public void recordCompletedVisit(AttendanceRecord attendanceRecord) {
+        LocalDate day = attendanceRecord.getCheckInTime().toLocalDate();
+        String type = attendanceRecord.getType() != null ? attendanceRecord.getType() : "";
+        boolean returningVisitor = attendanceRepository.existsOtherCompletedVisit(attendanceRecord.getUser(), type,
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay(), attendanceRecord.getId());
+        Integer duration = attendanceRecord.getDurationInMinutes();
+        rollupRepository.increment(day, type, returningVisitor ? 0 : 1,
+                duration != null ? duration : 0, duration != null ? 1 : 0);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTotals(LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT) ? startDate.toLocalDate() : startDate.toLocalDate().plusDays(1);
+        LocalDate endOfFullDays = endDate.toLocalDate().isBefore(LocalDate.now()) ? endDate.toLocalDate() : LocalDate.now();
+
+        long visits = 0;
+        long durationSum = 0;
+        long durationCount = 0;
+        List<AttendanceTotals> parts = new ArrayList<>();
+        if (firstFullDay.isBefore(endOfFullDays)) {
+            parts.add(rollupRepository.sumByDayBetween(firstFullDay, endOfFullDays));
+            if (startDate.isBefore(firstFullDay.atStartOfDay())) {
+                parts.add(attendanceRepository.aggregateCompletedByCheckInTimeBetween(startDate, firstFullDay.atStartOfDay()));
+            }
+            if (endOfFullDays.atStartOfDay().isBefore(endDate)) {
+                parts.add(attendanceRepository.aggregateCompletedByCheckInTimeBetween(endOfFullDays.atStartOfDay(), endDate));
+            }
+        } else {
+            parts.add(attendanceRepository.aggregateCompletedByCheckInTimeBetween(startDate, endDate));
+        }
+        for (AttendanceTotals part : parts) {
+            visits += part.getVisits() != null ? part.getVisits() : 0;
+            durationSum += part.getDurationSum() != null ? part.getDurationSum() : 0;
+            durationCount += part.getDurationCount() != null ? part.getDurationCount() : 0;
+        }
+
+        Map<String, Object> totals = new HashMap<>();
+        totals.put("totalVisits", visits);
+        totals.put("averageVisitDurationMinutes", durationCount > 0 ? Math.round((double) durationSum / durationCount) : 0);
+        return totals;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getDailySeries(LocalDate from, LocalDate to) {
+        List<Map<String, Object>> series = new ArrayList<>();
+        for (AttendanceDailyRollup rollup : rollupRepository.findAllByDayGreaterThanEqualAndDayLessThanOrderByDayAsc(from, to)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("day", rollup.getDay());
+            entry.put("type", rollup.getType());
+            entry.put("visits", rollup.getVisits());
+            entry.put("uniqueVisitors", rollup.getDistinctVisitors());
+            entry.put("averageVisitDurationMinutes", rollup.getDurationCount() > 0 ? Math.round((double) rollup.getDurationSum() / rollup.getDurationCount()) : 0);
+            series.add(entry);
+        }
+        return series;
+    }
+}
@@ -1,16 +1,23 @@
 package com.smartsalle.main.service;
 
+import com.smartsalle.main.model.AttendanceEvent;
 import com.smartsalle.main.model.AttendanceRecord;
+import com.smartsalle.main.model.AttendanceRecordView;
 import com.smartsalle.main.model.User;
 import com.smartsalle.main.model.UserRole;
 import com.smartsalle.main.repository.AttendanceRepository;
-import com.smartsalle.main.repository.UserRepository;
+import com.smartsalle.main.repository.GymRepository;
+import com.smartsalle.main.repository.specification.FilterSpecifications;
+import com.smartsalle.main.repository.specification.KeysetPager;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,80 +31,140 @@ import java.util.Map;
 public class AttendanceService {
 
     private final AttendanceRepository attendanceRepository;
-    private final UserRepository userRepository;
+    private final UserRoleLookup userRoleLookup;
+    private final OccupancyIndex occupancyIndex;
+    private final AttendanceRollupService attendanceRollupService;
+    private final OccupancyBroadcaster occupancyBroadcaster;
+    private final GymService gymService;
+    private final GymRepository gymRepository;
 
     @Autowired
-    public AttendanceService(AttendanceRepository attendanceRepository, UserRepository userRepository) {
+    public AttendanceService(AttendanceRepository attendanceRepository, UserRoleLookup userRoleLookup,
+                             OccupancyIndex occupancyIndex, AttendanceRollupService attendanceRollupService,
+                             OccupancyBroadcaster occupancyBroadcaster, GymService gymService, GymRepository gymRepository) {
         this.attendanceRepository = attendanceRepository;
-        this.userRepository = userRepository;
+        this.userRoleLookup = userRoleLookup;
+        this.occupancyIndex = occupancyIndex;
+        this.attendanceRollupService = attendanceRollupService;
+        this.occupancyBroadcaster = occupancyBroadcaster;
+        this.gymService = gymService;
+        this.gymRepository = gymRepository;
     }
 
     @Transactional(readOnly = true)
-    public Page<AttendanceRecord> findAllAttendanceRecords(Long memberId, LocalDateTime startDate, LocalDateTime endDate, String type, int page, int size) {
+    public Page<AttendanceRecordView> findAllAttendanceRecords(Long memberId, LocalDateTime startDate, LocalDateTime endDate, String type, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("checkInTime").descending());
         User member = null;
         if (memberId != null) {
-            member = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+            member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                     .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
         }
 
-        if (member != null && type != null && startDate != null && endDate != null) {
-            return attendanceRepository.findByUserAndTypeAndCheckInTimeBetween(member, type, startDate, endDate, pageable);
-        } else if (member != null && startDate != null && endDate != null) {
-            return attendanceRepository.findByUserAndCheckInTimeBetween(member, startDate, endDate, pageable);
-        } else if (type != null && startDate != null && endDate != null) {
-            return attendanceRepository.findByTypeAndCheckInTimeBetween(type, startDate, endDate, pageable);
-        } else if (member != null) {
-            return attendanceRepository.findAllByUser(member, pageable);
-        } else if (startDate != null && endDate != null) {
-            return attendanceRepository.findAllByCheckInTimeBetween(startDate, endDate, pageable);
+        return attendanceRepository.findAll(attendanceFilter(member, startDate, endDate, type), pageable)
+                .map(AttendanceRecordView::from);
+    }
+
+    // Pagination par clé sur (checkInTime, id) : pas d'OFFSET ni de COUNT, seulement "y a-t-il une page suivante"
+    @Transactional(readOnly = true)
+    public Slice<AttendanceRecordView> scrollAttendanceRecords(Long memberId, LocalDateTime startDate, LocalDateTime endDate, String type,
+                                                              LocalDateTime afterCheckInTime, Long afterId, int size) {
+        User member = null;
+        if (memberId != null) {
+            member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
+                    .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
         }
-        return attendanceRepository.findAll(pageable);
+        return KeysetPager.fetch(attendanceRepository, attendanceFilter(member, startDate, endDate, type),
+                "checkInTime", afterCheckInTime, afterId, size).map(AttendanceRecordView::from);
+    }
+
+    private Specification<AttendanceRecord> attendanceFilter(User member, LocalDateTime startDate, LocalDateTime endDate, String type) {
+        return Specification.allOf(
+                FilterSpecifications.equal("user", member),
+                FilterSpecifications.equal("type", type),
+                FilterSpecifications.between("checkInTime", startDate, endDate));
     }
 
     @Transactional
-    public AttendanceRecord checkIn(Long memberId, String type) {
-        User member = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+    public AttendanceRecord checkIn(Long memberId, String type, Long gymId) {
+        User member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                 .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
 
-        // Vérifier si un check-in actif existe déjà pour ce membre
-        attendanceRepository.findLastActiveCheckInByUser(member).ifPresent(activeRecord -> {
-            throw new IllegalStateException("Member " + member.getFirstName() + " " + member.getLastName() + " is already checked in.");
-        });
+        // L'index en mémoire n'est qu'un raccourci : s'il voit le membre présent, la base tranche
+        // (le check-out a pu être traité par une autre instance)
+        if (!occupancyIndex.tryCheckIn(memberId)) {
+            attendanceRepository.findLastActiveCheckInByUser(member).ifPresent(activeRecord -> {
+                throw new IllegalStateException("Member with id " + memberId + " is already checked in.");
+            });
+            occupancyIndex.reclaim(memberId);
+        }
 
-        AttendanceRecord attendanceRecord = new AttendanceRecord(member, LocalDateTime.now(), type);
-        return attendanceRepository.save(attendanceRecord);
+        AttendanceRecord newRecord = new AttendanceRecord(member, LocalDateTime.now(), type);
+        if (gymId != null) {
+            gymService.readGymView(gymId); // 404 si la salle n'existe pas (lecture en cache)
+            newRecord.setGym(gymRepository.getReferenceById(gymId));
+        }
+        AttendanceRecord attendanceRecord;
+        try {
+            // flush immédiat : l'index unique partiel (un seul passage ouvert par membre) rejette un check-in concurrent
+            attendanceRecord = attendanceRepository.saveAndFlush(newRecord);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Member with id " + memberId + " is already checked in.");
+        }
+        occupancyIndex.checkedIn(attendanceRecord);
+        occupancyBroadcaster.publish(new AttendanceEvent(AttendanceEvent.Type.CHECK_IN, attendanceRecord.getId(), memberId,
+                gymId, attendanceRecord.getCheckInTime()));
+        return attendanceRecord;
     }
 
     @Transactional
     public AttendanceRecord checkOut(Long memberId) {
-        User member = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+        // Rôle vérifié avant l'index : un passage connu de l'index ne dispense pas du contrôle
+        User member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                 .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
-
-        AttendanceRecord attendanceRecord = attendanceRepository.findLastActiveCheckInByUser(member)
-                .orElseThrow(() -> new EntityNotFoundException("No active check-in found for member id: " + memberId));
+        AttendanceRecord attendanceRecord = occupancyIndex.findActiveCheckIn(memberId)
+                .flatMap(activeCheckIn -> attendanceRepository.findById(activeCheckIn.getAttendanceRecordId()))
+                .filter(activeRecord -> activeRecord.getCheckOutTime() == null)
+                .orElseGet(() -> findLastActiveCheckIn(member));
 
         attendanceRecord.setCheckOutTime(LocalDateTime.now());
         if (attendanceRecord.getCheckInTime() != null) {
             long duration = Duration.between(attendanceRecord.getCheckInTime(), attendanceRecord.getCheckOutTime()).toMinutes();
             attendanceRecord.setDurationInMinutes((int) duration);
         }
-        return attendanceRepository.save(attendanceRecord);
+        occupancyIndex.checkedOut(memberId);
+        AttendanceRecord savedRecord = attendanceRepository.save(attendanceRecord);
+        attendanceRollupService.recordCompletedVisit(savedRecord);
+        occupancyBroadcaster.publish(new AttendanceEvent(AttendanceEvent.Type.CHECK_OUT, savedRecord.getId(), memberId,
+                savedRecord.getGym() != null ? savedRecord.getGym().getId() : null, savedRecord.getCheckOutTime()));
+        return savedRecord;
+    }
+
+    private AttendanceRecord findLastActiveCheckIn(User member) {
+        return attendanceRepository.findLastActiveCheckInByUser(member)
+                .orElseThrow(() -> new EntityNotFoundException("No active check-in found for member id: " + member.getId()));
+    }
+
+    public Map<String, Object> getCurrentOccupancy() {
+        List<OccupancyIndex.ActiveCheckIn> activeCheckIns = occupancyIndex.getActiveCheckIns();
+        Map<String, Object> occupancy = new HashMap<>();
+        occupancy.put("currentOccupancy", activeCheckIns.size());
+        occupancy.put("occupancyByGym", occupancyIndex.countByGym());
+        occupancy.put("activeCheckIns", activeCheckIns);
+        return occupancy;
     }
 
     @Transactional(readOnly = true)
-    public Map<String, Object> getAttendanceStats(LocalDateTime startDate, LocalDateTime endDate) {
+    public Map<String, Object> getAttendanceStats(LocalDateTime startDate, LocalDateTime endDate, boolean includeDaily) {
         if (startDate == null) startDate = LocalDateTime.now().minusYears(1); // Default to last year if not provided
         if (endDate == null) endDate = LocalDateTime.now();
 
-        long totalVisits = attendanceRepository.findAllByCheckInTimeBetween(startDate, endDate, PageRequest.of(0,1)).getTotalElements();
-        long uniqueVisitors = attendanceRepository.countDistinctUsersByCheckInTimeBetween(startDate, endDate);
-        Double averageDuration = attendanceRepository.getAverageDurationInMinutesByCheckInTimeBetween(startDate, endDate);
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalVisits", totalVisits);
-        stats.put("uniqueVisitors", uniqueVisitors);
-        stats.put("averageVisitDurationMinutes", averageDuration != null ? Math.round(averageDuration) : 0);
+        // Visites et durée moyenne : agrégats journaliers + calcul direct des bords partiels et du jour courant
+        Map<String, Object> stats = new HashMap<>(attendanceRollupService.getTotals(startDate, endDate));
+        // Les visiteurs distincts ne s'additionnent pas d'un jour à l'autre : comptage exact sur la période
+        stats.put("uniqueVisitors", attendanceRepository.countDistinctUsersWithCompletedVisitBetween(startDate, endDate));
+        if (includeDaily) {
+            stats.put("daily", attendanceRollupService.getDailySeries(startDate.toLocalDate(), endDate.toLocalDate().plusDays(1)));
+        }
 
         return stats;
     }
@@ -0,0 +1,83 @@
+package com.smartsalle.main.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Roue temporelle (hashed timing wheel) des réservations provisoires à expirer.
+ * Chaque échéance est rangée dans la case de son tick (échéance / tickMillis, modulo le nombre de cases) :
+ * l'ajout est en O(1) et chaque avance de la roue ne parcourt que les cases des ticks écoulés.
+ * Une échéance plus lointaine qu'un tour de roue reste dans sa case jusqu'au tour correspondant.
+ * La roue ne fait que signaler les ids échus : l'expiration elle-même est conditionnelle en base (BookingService).
+ */
+@Component
+public class BookingHoldWheel {
+
+    private final long tickMillis;
+    private final Queue<Hold>[] slots;
+
+    // Prochain tick à traiter ; les échéances déjà passées sont rangées dans sa case
+    private volatile long nextTick;
+
+    @SuppressWarnings("unchecked")
+    public BookingHoldWheel(@Value("${bookings.hold.tick-ms:1000}") long tickMillis,
+                            @Value("${bookings.hold.wheel-size:512}") int wheelSize) {
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nextTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    public void schedule(Long bookingId, long expiresAtMillis) {
+        // Arrondi au tick supérieur : la roue ne signale jamais une réservation avant son échéance
+        long tick = Math.max(Math.floorDiv(expiresAtMillis + tickMillis - 1, tickMillis), nextTick);
+        slots[slotOf(tick)].add(new Hold(bookingId, tick));
+    }
+
+    // Retourne les réservations échues depuis le dernier appel
+    public synchronized List<Long> advance(long nowMillis) {
+        long currentTick = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+        // Au plus un tour complet : au-delà, toutes les cases ont déjà été parcourues
+        long from = Math.max(nextTick, currentTick - slots.length + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Queue<Hold> slot = slots[slotOf(tick)];
+            // Les réservations d'un tour ultérieur sont remises dans la case
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                Hold hold = slot.poll();
+                if (hold == null) {
+                    break;
+                }
+                if (hold.tick() <= currentTick) {
+                    expired.add(hold.bookingId());
+                } else {
+                    slot.add(hold);
+                }
+            }
+        }
+        nextTick = Math.max(nextTick, currentTick + 1);
+        return expired;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Queue<Hold> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+
+    private record Hold(Long bookingId, long tick) {
+    }
+}
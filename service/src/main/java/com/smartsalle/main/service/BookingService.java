@@ -0,0 +1,246 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.Booking;
+import com.smartsalle.main.model.BookingStatus;
+import com.smartsalle.main.model.BookingView;
+import com.smartsalle.main.model.Session;
+import com.smartsalle.main.model.SessionStatus;
+import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.repository.BookingRepository;
+import com.smartsalle.main.repository.SessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réservation des séances. La place est prise par une mise à jour conditionnelle du compteur de la séance
+ * (SessionRepository.reserveSeat), sans lecture préalable du nombre de réservations.
+ * Une réservation provisoire (HELD) retient la place pendant bookings.hold.ttl ; non confirmée à temps,
+ * elle est expirée par la roue temporelle (BookingHoldWheel) et sa place rendue.
+ */
+@Service
+public class BookingService {
+
+    private static final Logger LOGGER = LogManager.getLogger(BookingService.class);
+
+    private static final EnumSet<BookingStatus> ACTIVE = EnumSet.of(BookingStatus.HELD, BookingStatus.CONFIRMED);
+
+    // Conditionnel sur le statut et l'échéance : une réservation confirmée ou annulée entre-temps n'est pas touchée
+    private static final String EXPIRE_HOLDS = "UPDATE bookings SET status = 'EXPIRED' " +
+            "WHERE id = ANY (?) AND status = 'HELD' AND hold_expires_at <= ? RETURNING session_id";
+
+    private final BookingRepository bookingRepository;
+    private final SessionRepository sessionRepository;
+    private final UserRoleLookup userRoleLookup;
+    private final BookingHoldWheel bookingHoldWheel;
+    private final TimetableService timetableService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdTtl;
+    private final int sweepBatchSize;
+    private final Counter expiredHolds;
+
+    public BookingService(BookingRepository bookingRepository, SessionRepository sessionRepository, UserRoleLookup userRoleLookup,
+                          BookingHoldWheel bookingHoldWheel, TimetableService timetableService, JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                          @Value("${bookings.hold.ttl:5m}") Duration holdTtl,
+                          @Value("${bookings.hold.sweep-batch-size:500}") int sweepBatchSize) {
+        this.bookingRepository = bookingRepository;
+        this.sessionRepository = sessionRepository;
+        this.userRoleLookup = userRoleLookup;
+        this.bookingHoldWheel = bookingHoldWheel;
+        this.timetableService = timetableService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.holdTtl = holdTtl;
+        this.sweepBatchSize = sweepBatchSize;
+        this.expiredHolds = Counter.builder("bookings.holds.expired")
+                .description("Session bookings released after their hold expired").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadHolds() {
+        List<Object[]> holds = bookingRepository.findAllHolds();
+        for (Object[] hold : holds) {
+            bookingHoldWheel.schedule((Long) hold[0], toEpochMillis((LocalDateTime) hold[1]));
+        }
+        LOGGER.info("Booking hold wheel loaded with {} pending holds", holds.size());
+    }
+
+    @Transactional
+    public Booking bookSession(Long sessionId, Long memberId, boolean hold) {
+        User member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
+                .orElseThrow(() -> new EntityNotFoundException("Member (CLIENT) not found with id: " + memberId));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (sessionRepository.reserveSeat(sessionId, now) == 0) {
+            // Échec : relecture seulement pour expliquer le refus
+            Session session = findSession(sessionId);
+            if (session.getStatus() == SessionStatus.CANCELLED) {
+                throw new IllegalStateException("Cannot book a cancelled session.");
+            }
+            if (session.getStartTime() != null && !session.getStartTime().isAfter(now)) {
+                throw new IllegalStateException("Cannot book a session that has already started.");
+            }
+            throw new IllegalStateException("Session is full.");
+        }
+
+        Booking booking = new Booking();
+        booking.setSession(sessionRepository.getReferenceById(sessionId));
+        booking.setUser(member);
+        booking.setStatus(hold ? BookingStatus.HELD : BookingStatus.CONFIRMED);
+        if (hold) {
+            booking.setHoldExpiresAt(now.plus(holdTtl).truncatedTo(ChronoUnit.MILLIS));
+        }
+        try {
+            // L'index unique partiel (session_id, user_id) des réservations actives détecte un doublon ; la place est rendue avec la transaction
+            bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Member already has an active booking for this session.");
+        }
+        if (hold) {
+            scheduleAfterCommit(booking.getId(), booking.getHoldExpiresAt());
+        }
+        timetableService.invalidateSession(sessionId);
+        return booking;
+    }
+
+    @Transactional
+    public Booking confirmBooking(Long sessionId, Long bookingId, Long memberId) {
+        Booking booking = findBooking(sessionId, bookingId);
+        if (booking.getStatus() == BookingStatus.CONFIRMED && booking.getUser().getId().equals(memberId)) {
+            return booking;
+        }
+        if (bookingRepository.confirmHold(bookingId, memberId, LocalDateTime.now()) == 0) {
+            if (!booking.getUser().getId().equals(memberId)) {
+                throw new AccessDeniedException("Booking belongs to another member.");
+            }
+            throw new IllegalStateException("Booking hold has expired or the booking is no longer active.");
+        }
+        // L'entrée de la roue devient sans effet : l'expiration ne porte que sur les réservations encore HELD
+        booking.setStatus(BookingStatus.CONFIRMED);
+        booking.setHoldExpiresAt(null);
+        return booking;
+    }
+
+    // memberId null : annulation par un administrateur, sans contrôle du propriétaire
+    @Transactional
+    public void cancelBooking(Long sessionId, Long bookingId, Long memberId) {
+        Booking booking = findBooking(sessionId, bookingId);
+        if (memberId != null && !booking.getUser().getId().equals(memberId)) {
+            throw new AccessDeniedException("Booking belongs to another member.");
+        }
+        // Mise à jour conditionnelle : une réservation expirée au même moment ne rend pas sa place deux fois
+        if (bookingRepository.cancelIfActive(bookingId, ACTIVE) == 0) {
+            throw new IllegalStateException("Booking is not active. Current status: " + booking.getStatus());
+        }
+        sessionRepository.releaseSeats(sessionId, 1);
+        timetableService.invalidateSession(sessionId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingView> getSessionBookings(Long sessionId) {
+        findSession(sessionId);
+        return bookingRepository.findBySessionIdOrderByIdAsc(sessionId).stream()
+                .map(BookingView::from)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${bookings.hold.tick-ms:1000}")
+    public void expireDueHolds() {
+        List<Long> due = bookingHoldWheel.advance(System.currentTimeMillis());
+        if (!due.isEmpty()) {
+            expireHolds(due);
+        }
+    }
+
+    // Filet de sécurité : réservations d'une instance arrêtée avant leur échéance, ou ajoutées dans une case déjà parcourue
+    @Scheduled(fixedDelayString = "${bookings.hold.sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        List<Long> overdue = bookingRepository.findExpiredHoldIds(LocalDateTime.now().minus(Duration.ofMinutes(1)),
+                PageRequest.of(0, sweepBatchSize));
+        if (!overdue.isEmpty()) {
+            LOGGER.info("Sweeping {} booking holds missed by the expiry wheel", overdue.size());
+            expireHolds(overdue);
+        }
+    }
+
+    // Retourne le nombre de réservations effectivement expirées
+    public int expireHolds(List<Long> bookingIds) {
+        Integer expired = transactionTemplate.execute(status -> {
+            List<Long> sessionIds = jdbcTemplate.queryForList(EXPIRE_HOLDS, Long.class,
+                    bookingIds.toArray(Long[]::new), LocalDateTime.now());
+            // Une mise à jour du compteur par séance et non par réservation
+            Map<Long, Integer> releasedBySession = new HashMap<>();
+            for (Long sessionId : sessionIds) {
+                releasedBySession.merge(sessionId, 1, Integer::sum);
+            }
+            releasedBySession.forEach((sessionId, released) -> {
+                sessionRepository.releaseSeats(sessionId, released);
+                timetableService.invalidateSession(sessionId);
+            });
+            return sessionIds.size();
+        });
+        int count = expired != null ? expired : 0;
+        if (count > 0) {
+            expiredHolds.increment(count);
+            LOGGER.debug("Expired {} booking holds", count);
+        }
+        return count;
+    }
+
+    private Session findSession(Long sessionId) {
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new EntityNotFoundException("Session not found with id: " + sessionId));
+    }
+
+    private Booking findBooking(Long sessionId, Long bookingId) {
+        return bookingRepository.findById(bookingId)
+                .filter(booking -> booking.getSession().getId().equals(sessionId))
+                .orElseThrow(() -> new EntityNotFoundException("Booking not found with id: " + bookingId + " for session: " + sessionId));
+    }
+
+    private void scheduleAfterCommit(Long bookingId, LocalDateTime expiresAt) {
+        long expiresAtMillis = toEpochMillis(expiresAt);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bookingHoldWheel.schedule(bookingId, expiresAtMillis);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookingHoldWheel.schedule(bookingId, expiresAtMillis);
+            }
+        });
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
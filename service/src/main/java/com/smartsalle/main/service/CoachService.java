@@ -1,36 +1,59 @@
 package com.smartsalle.main.service;
 
+import com.smartsalle.main.config.CacheConfig;
+import com.smartsalle.main.model.TimeSlot;
 import com.smartsalle.main.model.User;
 import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.model.UserView;
 import com.smartsalle.main.repository.UserRepository;
+import com.smartsalle.main.repository.specification.FilterSpecifications;
+import com.smartsalle.main.repository.specification.KeysetPager;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 // import org.springframework.data.domain.PageRequest; // Plus nécessaire ici si Pageable est passé directement
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-// import java.util.List; // Remplacé par Page<User>
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class CoachService {
 
+    // Plage maximale d'une recherche de créneaux libres
+    private static final Duration MAX_FREE_SLOT_RANGE = Duration.ofDays(92);
+
     private final UserRepository userRepository;
+    private final ScheduleConflictIndex scheduleConflictIndex;
 
     @Autowired
-    public CoachService(UserRepository userRepository) {
+    public CoachService(UserRepository userRepository, ScheduleConflictIndex scheduleConflictIndex) {
         this.userRepository = userRepository;
+        this.scheduleConflictIndex = scheduleConflictIndex;
     }
 
     @Transactional(readOnly = true)
-    public Page<User> findAllCoaches(String name, String email, String specialty, Pageable pageable) {
+    public Page<UserView> findAllCoaches(String name, String email, String specialty, Pageable pageable) {
         // TODO: Implémenter la logique de filtrage plus avancée basée sur name, email, specialty
         // Pour l'instant, retourne tous les utilisateurs avec le rôle TRAINER, paginés
         // La recherche par rôle TRAINER est déjà dans la méthode du repository.
         // Si des filtres (name, email, specialty) sont fournis, il faudra construire une Specification JPA ou utiliser QueryDSL.
         // Exemple simple sans filtres supplémentaires pour l'instant :
-        return userRepository.findByRole(UserRole.TRAINER, pageable);
+        return userRepository.findByRole(UserRole.TRAINER, pageable, UserView.class);
+    }
+
+    // Mode curseur : tri par id décroissant, sans COUNT
+    @Transactional(readOnly = true)
+    public Slice<UserView> scrollCoaches(Long afterId, int size) {
+        return KeysetPager.fetchById(userRepository, FilterSpecifications.equal("role", UserRole.TRAINER), afterId, size)
+                .map(UserView::from);
     }
 
     @Transactional
@@ -53,7 +76,30 @@ public class CoachService {
                 .orElseThrow(() -> new EntityNotFoundException("Coach not found with id: " + id));
     }
 
+    // Fiche d'un coach en lecture seule, mise en cache (évincée par updateCoach et deleteCoach)
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.TRAINERS, key = "#id")
+    public UserView findCoachViewById(Long id) {
+        return UserView.from(findCoachById(id));
+    }
+
+    // Créneaux libres du coach entre from et to, calculés sur l'index des événements et séances (sans requête SQL)
+    public List<TimeSlot> findFreeSlots(Long id, LocalDateTime from, LocalDateTime to, int minMinutes) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'.");
+        }
+        if (Duration.between(from, to).compareTo(MAX_FREE_SLOT_RANGE) > 0) {
+            throw new IllegalArgumentException("Free slot range cannot exceed " + MAX_FREE_SLOT_RANGE.toDays() + " days.");
+        }
+        if (minMinutes < 0) {
+            throw new IllegalArgumentException("minMinutes cannot be negative.");
+        }
+        findCoachById(id);
+        return scheduleConflictIndex.findFreeSlots(id, from, to, Duration.ofMinutes(minMinutes));
+    }
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TRAINERS, key = "#id")
     public User updateCoach(Long id, User coachDetails) {
         User existingCoach = findCoachById(id); // Assure que le coach existe et a le bon rôle
 
@@ -82,6 +128,10 @@ public class CoachService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.TRAINERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.USER_ROLES, key = "#id")
+    })
     public void deleteCoach(Long id) {
         User coach = findCoachById(id); // Assure que le coach existe et a le bon rôle
         userRepository.delete(coach);
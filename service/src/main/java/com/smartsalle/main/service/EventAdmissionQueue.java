@@ -0,0 +1,108 @@
+package com.smartsalle.main.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * File d'admission en mémoire par événement : un compteur de places disponibles suit les inscriptions de cette instance.
+ * La base reste la référence : EventService tente la réservation (EventRepository.reserveSeat) même lorsque
+ * le compteur est à zéro, une place libérée par une autre instance n'existant qu'en base. Un compteur vide est relu
+ * au plus une fois par REFRESH_INTERVAL_MILLIS, et retiré dès qu'il est en désaccord avec la base.
+ * Un compteur inutilisé pendant IDLE_EVICTION (événement passé, annulé ou sans demande) est retiré puis relu au besoin.
+ */
+@Component
+public class EventAdmissionQueue {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 2000;
+
+    private static final Duration IDLE_EVICTION = Duration.ofMinutes(30);
+
+    private final Map<Long, SeatPermits> permitsByEvent = Caffeine.newBuilder()
+            .expireAfterAccess(IDLE_EVICTION)
+            .<Long, SeatPermits>build()
+            .asMap();
+
+    /**
+     * Prend une place pour la transaction courante. La place est rendue si la transaction est annulée.
+     * availableSeatsLoader lit le nombre de places libres en base lorsque le compteur est absent ou périmé.
+     */
+    public boolean tryAdmit(Long eventId, IntSupplier availableSeatsLoader) {
+        SeatPermits permits = permitsByEvent.get(eventId);
+        if (permits == null || (permits.remaining.get() <= 0 && permits.isStale())) {
+            permits = new SeatPermits(availableSeatsLoader.getAsInt());
+            permitsByEvent.put(eventId, permits);
+        }
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        SeatPermits acquired = permits;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        acquired.remaining.incrementAndGet();
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Une place libérée sans promotion depuis la liste d'attente redevient disponible après le commit
+    public void release(Long eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseNow(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseNow(eventId);
+            }
+        });
+    }
+
+    // Capacité modifiée, événement supprimé ou plus à venir, compteur en désaccord avec la base : relecture au prochain accès
+    public void invalidate(Long eventId) {
+        permitsByEvent.remove(eventId);
+    }
+
+    private void releaseNow(Long eventId) {
+        SeatPermits permits = permitsByEvent.get(eventId);
+        if (permits != null) {
+            permits.remaining.incrementAndGet();
+        }
+    }
+
+    private static class SeatPermits {
+        private final AtomicInteger remaining;
+        private final long loadedAt = System.currentTimeMillis();
+
+        SeatPermits(int available) {
+            this.remaining = new AtomicInteger(Math.max(available, 0));
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - loadedAt > REFRESH_INTERVAL_MILLIS;
+        }
+    }
+}
@@ -2,68 +2,102 @@ package com.smartsalle.main.service;
 
 import com.smartsalle.main.model.Event;
 import com.smartsalle.main.model.EventRegistration;
+import com.smartsalle.main.model.EventRegistrationView;
+import com.smartsalle.main.model.EventView;
+import com.smartsalle.main.model.Gym;
+import com.smartsalle.main.model.RegistrationStatus;
 import com.smartsalle.main.model.User;
 import com.smartsalle.main.model.UserRole;
 import com.smartsalle.main.repository.EventRegistrationRepository;
 import com.smartsalle.main.repository.EventRepository;
-import com.smartsalle.main.repository.UserRepository;
+import com.smartsalle.main.repository.GymRepository;
+import com.smartsalle.main.repository.specification.FilterSpecifications;
+import com.smartsalle.main.repository.specification.KeysetPager;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class EventService {
 
     private final EventRepository eventRepository;
     private final EventRegistrationRepository eventRegistrationRepository;
-    private final UserRepository userRepository;
+    private final UserRoleLookup userRoleLookup;
+    private final EventAdmissionQueue eventAdmissionQueue;
+    private final ScheduleConflictIndex scheduleConflictIndex;
+    private final TimetableService timetableService;
+    private final GymService gymService;
+    private final GymRepository gymRepository;
 
     @Autowired
     public EventService(EventRepository eventRepository, 
                         EventRegistrationRepository eventRegistrationRepository, 
-                        UserRepository userRepository) {
+                        UserRoleLookup userRoleLookup,
+                        EventAdmissionQueue eventAdmissionQueue,
+                        ScheduleConflictIndex scheduleConflictIndex,
+                        TimetableService timetableService,
+                        GymService gymService,
+                        GymRepository gymRepository) {
         this.eventRepository = eventRepository;
         this.eventRegistrationRepository = eventRegistrationRepository;
-        this.userRepository = userRepository;
+        this.userRoleLookup = userRoleLookup;
+        this.eventAdmissionQueue = eventAdmissionQueue;
+        this.scheduleConflictIndex = scheduleConflictIndex;
+        this.timetableService = timetableService;
+        this.gymService = gymService;
+        this.gymRepository = gymRepository;
     }
 
     @Transactional(readOnly = true)
-    public Page<Event> findAllEvents(String status, String type, LocalDateTime startDate, LocalDateTime endDate, int page, int size) {
+    public Page<EventView> findAllEvents(String status, String type, LocalDateTime startDate, LocalDateTime endDate, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("dateTime").descending());
-        
-        if (status != null && type != null && startDate != null && endDate != null) {
-            return eventRepository.findAllByStatusAndTypeAndDateTimeBetween(status, type, startDate, endDate, pageable);
-        } else if (status != null && startDate != null && endDate != null) {
-            return eventRepository.findAllByStatusAndDateTimeBetween(status, startDate, endDate, pageable);
-        } else if (type != null && startDate != null && endDate != null) {
-            return eventRepository.findAllByTypeAndDateTimeBetween(type, startDate, endDate, pageable);
-        } else if (status != null && type != null) {
-            return eventRepository.findAllByStatusAndType(status, type, pageable);
-        } else if (status != null) {
-            return eventRepository.findAllByStatus(status, pageable);
-        } else if (type != null) {
-            return eventRepository.findAllByType(type, pageable);
-        } else if (startDate != null && endDate != null) {
-            return eventRepository.findAllByDateTimeBetween(startDate, endDate, pageable);
-        }
-        return eventRepository.findAll(pageable);
+        return eventRepository.findAll(eventFilter(status, type, startDate, endDate), pageable).map(EventView::from);
+    }
+
+    // Pagination par clé sur (dateTime, id), sans OFFSET ni COUNT
+    @Transactional(readOnly = true)
+    public Slice<EventView> scrollEvents(String status, String type, LocalDateTime startDate, LocalDateTime endDate,
+                                         LocalDateTime afterDateTime, Long afterId, int size) {
+        return KeysetPager.fetch(eventRepository, eventFilter(status, type, startDate, endDate), "dateTime", afterDateTime, afterId, size)
+                .map(EventView::from);
+    }
+
+    private Specification<Event> eventFilter(String status, String type, LocalDateTime startDate, LocalDateTime endDate) {
+        return Specification.allOf(
+                FilterSpecifications.equal("status", status),
+                FilterSpecifications.equal("type", type),
+                FilterSpecifications.between("dateTime", startDate, endDate));
     }
 
     @Transactional
-    public Event createEvent(Event event, Long instructorId) {
+    public Event createEvent(Event event, Long instructorId, Long gymId) {
+        // Créneau complet exigé avant toute réservation dans l'index des conflits
+        if (event.getDateTime() == null) {
+            throw new IllegalArgumentException("Event date time is required.");
+        }
+        if (event.getDurationInMinutes() == null || event.getDurationInMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
         if (instructorId != null) {
-            User instructor = userRepository.findByIdAndRole(instructorId, UserRole.TRAINER)
+            User instructor = userRoleLookup.findByIdAndRole(instructorId, UserRole.TRAINER)
                     .orElseThrow(() -> new EntityNotFoundException("Instructor (TRAINER) not found with id: " + instructorId));
             event.setInstructor(instructor);
         }
+        if (gymId != null) {
+            event.setGym(gymReference(gymId));
+        }
         if (event.getDateTime().isBefore(LocalDateTime.now())){
             throw new IllegalArgumentException("Event date time must be in the future.");
         }
@@ -71,7 +105,21 @@ public class EventService {
         if (event.getStatus() == null) {
             event.setStatus("upcoming");
         }
-        return eventRepository.save(event);
+        Event savedEvent = eventRepository.save(event);
+        // Refusé si l'instructeur ou le lieu est déjà pris sur le créneau (id attribué par save)
+        scheduleConflictIndex.scheduleEvent(savedEvent);
+        flushSchedule();
+        timetableService.invalidate(gymId, savedEvent.getDateTime());
+        return savedEvent;
+    }
+
+    // Contraintes d'exclusion (V17) : un chevauchement que l'index en mémoire de cette instance n'a pas vu est refusé par la base
+    private void flushSchedule() {
+        try {
+            eventRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Instructor or location is already booked on this time slot.");
+        }
     }
 
     @Transactional(readOnly = true)
@@ -81,8 +129,11 @@ public class EventService {
     }
 
     @Transactional
-    public Event updateEvent(Long id, Event eventDetails, Long instructorId) {
+    public Event updateEvent(Long id, Event eventDetails, Long instructorId, Long gymId) {
         Event existingEvent = findEventById(id);
+        // Semaine d'origine dans le planning, à invalider si l'événement change de date ou de salle
+        Long previousGymId = existingEvent.getGym() != null ? existingEvent.getGym().getId() : null;
+        LocalDateTime previousDateTime = existingEvent.getDateTime();
 
         if (eventDetails.getTitle() != null) existingEvent.setTitle(eventDetails.getTitle());
         if (eventDetails.getDescription() != null) existingEvent.setDescription(eventDetails.getDescription());
@@ -92,21 +143,62 @@ public class EventService {
             }
             existingEvent.setDateTime(eventDetails.getDateTime());
         }
-        if (eventDetails.getDurationInMinutes() != null) existingEvent.setDurationInMinutes(eventDetails.getDurationInMinutes());
+        if (eventDetails.getDurationInMinutes() != null) {
+            if (eventDetails.getDurationInMinutes() <= 0) {
+                throw new IllegalArgumentException("Duration must be positive.");
+            }
+            existingEvent.setDurationInMinutes(eventDetails.getDurationInMinutes());
+        }
         if (eventDetails.getCapacity() != null) existingEvent.setCapacity(eventDetails.getCapacity());
         if (eventDetails.getLocation() != null) existingEvent.setLocation(eventDetails.getLocation());
         if (eventDetails.getType() != null) existingEvent.setType(eventDetails.getType());
         if (eventDetails.getStatus() != null) existingEvent.setStatus(eventDetails.getStatus());
 
         if (instructorId != null) {
-            User instructor = userRepository.findByIdAndRole(instructorId, UserRole.TRAINER)
+            User instructor = userRoleLookup.findByIdAndRole(instructorId, UserRole.TRAINER)
                     .orElseThrow(() -> new EntityNotFoundException("Instructor (TRAINER) not found with id: " + instructorId));
             existingEvent.setInstructor(instructor);
         } else if (eventDetails.getInstructor() == null) { // Allow unsetting instructor
             existingEvent.setInstructor(null);
         }
+        if (gymId != null) {
+            existingEvent.setGym(gymReference(gymId));
+        }
+
+        Event savedEvent = eventRepository.save(existingEvent);
+        scheduleConflictIndex.scheduleEvent(savedEvent);
+        flushSchedule();
+        eventAdmissionQueue.invalidate(id);
+        timetableService.invalidate(previousGymId, previousDateTime);
+        timetableService.invalidate(savedEvent.getGym() != null ? savedEvent.getGym().getId() : null, savedEvent.getDateTime());
+        // Capacité augmentée : les places supplémentaires sont attribuées à la liste d'attente
+        if (eventDetails.getCapacity() != null) {
+            fillFromWaitlist(id);
+        }
+        return savedEvent;
+    }
+
+    // Capacité modifiée hors de updateEvent (édition d'une série) : compteur en mémoire relu et places attribuées à la liste d'attente
+    @Transactional
+    public void onCapacityChanged(Long eventId) {
+        eventAdmissionQueue.invalidate(eventId);
+        fillFromWaitlist(eventId);
+    }
 
-        return eventRepository.save(existingEvent);
+    private Gym gymReference(Long gymId) {
+        gymService.readGymView(gymId); // 404 si la salle n'existe pas (lecture en cache)
+        return gymRepository.getReferenceById(gymId);
+    }
+
+    private void fillFromWaitlist(Long eventId) {
+        while (true) {
+            Optional<EventRegistration> next = eventRegistrationRepository
+                    .findFirstByEventIdAndStatusOrderByRegistrationTimeAscIdAsc(eventId, RegistrationStatus.WAITLISTED);
+            if (next.isEmpty() || eventRepository.reserveSeat(eventId) == 0) {
+                return;
+            }
+            next.get().setStatus(RegistrationStatus.REGISTERED);
+        }
     }
 
     @Transactional
@@ -115,34 +207,77 @@ public class EventService {
         // Consider logical delete (e.g., set status to "cancelled") instead of physical delete
         // For now, physical delete for simplicity, including registrations due to CascadeType.ALL
         eventRepository.delete(event);
+        scheduleConflictIndex.release(ScheduleConflictIndex.Source.EVENT, id);
+        eventAdmissionQueue.invalidate(id);
+        timetableService.invalidateEvent(id);
     }
 
     @Transactional
     public EventRegistration registerMemberToEvent(Long eventId, Long memberId) {
-        Event event = findEventById(eventId);
-        User member = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+        User member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                 .orElseThrow(() -> new EntityNotFoundException("Member (CLIENT) not found with id: " + memberId));
 
+        boolean admitted = eventAdmissionQueue.tryAdmit(eventId, () -> loadAvailableSeats(eventId));
+        // Réservation atomique de la place, tentée même sans admission : un compteur à zéro ne voit pas encore
+        // les places libérées par d'autres instances, seule la base décide du passage en liste d'attente
+        if (eventRepository.reserveSeat(eventId) == 1) {
+            if (!admitted) {
+                // Compteur en retard sur la base : il sera relu au prochain accès
+                eventAdmissionQueue.invalidate(eventId);
+            }
+            timetableService.invalidateEvent(eventId);
+            // Membres déjà en liste d'attente (place libérée pendant qu'ils s'inscrivaient, capacité augmentée) :
+            // la place revient au premier d'entre eux et le nouveau venu prend la file, l'ordre FIFO est conservé
+            if (promoteFromWaitlist(eventId)) {
+                return addToWaitlist(eventId, member);
+            }
+            return saveRegistration(eventRepository.getReferenceById(eventId), member, RegistrationStatus.REGISTERED);
+        }
+        if (admitted) {
+            // Compteur en avance sur la base : il sera relu au prochain accès
+            eventAdmissionQueue.invalidate(eventId);
+        }
+        return addToWaitlist(eventId, member);
+    }
+
+    private EventRegistration addToWaitlist(Long eventId, User member) {
+        Event event = findEventById(eventId);
         if (!"upcoming".equalsIgnoreCase(event.getStatus())) {
+            // Compteur à zéro chargé pour un événement passé ou annulé : inutile de le garder
+            eventAdmissionQueue.invalidate(eventId);
             throw new IllegalStateException("Cannot register for an event that is not upcoming. Current status: " + event.getStatus());
         }
+        return saveRegistration(event, member, RegistrationStatus.WAITLISTED);
+    }
 
-        if (eventRegistrationRepository.existsByEventAndUser(event, member)) {
-            throw new IllegalStateException("Member is already registered for this event.");
+    private EventRegistration saveRegistration(Event event, User member, RegistrationStatus status) {
+        try {
+            // La contrainte unique (event_id, user_id) détecte une double inscription ; la place réservée est alors annulée avec la transaction
+            return eventRegistrationRepository.saveAndFlush(new EventRegistration(event, member, status));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Member is already registered or on the waitlist for this event.");
         }
+    }
 
-        if (eventRegistrationRepository.countByEvent(event) >= event.getCapacity()) {
-            throw new IllegalStateException("Event has reached its maximum capacity.");
-        }
+    private int loadAvailableSeats(Long eventId) {
+        return eventRepository.findById(eventId)
+                .filter(event -> "upcoming".equalsIgnoreCase(event.getStatus()))
+                .map(Event::getAvailableSeats)
+                .orElse(0);
+    }
 
-        EventRegistration registration = new EventRegistration(event, member);
-        return eventRegistrationRepository.save(registration);
+    // Transfère une place libre au premier membre de la liste d'attente ; retourne false si la liste est vide
+    private boolean promoteFromWaitlist(Long eventId) {
+        Optional<EventRegistration> next = eventRegistrationRepository
+                .findFirstByEventIdAndStatusOrderByRegistrationTimeAscIdAsc(eventId, RegistrationStatus.WAITLISTED);
+        next.ifPresent(registration -> registration.setStatus(RegistrationStatus.REGISTERED));
+        return next.isPresent();
     }
 
     @Transactional
     public void unregisterMemberFromEvent(Long eventId, Long memberId) {
         Event event = findEventById(eventId);
-        User member = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+        User member = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                 .orElseThrow(() -> new EntityNotFoundException("Member (CLIENT) not found with id: " + memberId));
 
         EventRegistration registration = eventRegistrationRepository.findByEventAndUser(event, member)
@@ -153,12 +288,20 @@ public class EventService {
         }
 
         eventRegistrationRepository.delete(registration);
+        // La place libérée revient au premier membre en liste d'attente, sans changer le compteur ; sinon elle est rendue
+        if (registration.getStatus() == RegistrationStatus.REGISTERED && !promoteFromWaitlist(eventId)) {
+            eventRepository.releaseSeat(eventId);
+            eventAdmissionQueue.release(eventId);
+            timetableService.invalidateEvent(eventId);
+        }
     }
 
     @Transactional(readOnly = true)
-    public List<EventRegistration> getEventRegistrations(Long eventId) {
+    public List<EventRegistrationView> getEventRegistrations(Long eventId) {
         Event event = findEventById(eventId);
-        return eventRegistrationRepository.findAllByEvent(event);
+        return eventRegistrationRepository.findAllByEvent(event).stream()
+                .map(EventRegistrationView::from)
+                .toList();
     }
 }
 
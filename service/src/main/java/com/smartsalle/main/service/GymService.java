@@ -1,16 +1,20 @@
 package com.smartsalle.main.service;
 
+import com.smartsalle.main.config.CacheConfig;
 import com.smartsalle.main.model.Gym;
+import com.smartsalle.main.model.GymView;
 import com.smartsalle.main.repository.GymRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class GymService {
@@ -23,27 +27,41 @@ public class GymService {
         this.gymRepository = gymRepository;
     }
 
+    // Liste et fiches des salles en cache (CacheConfig) : évincées par createGym, updateGym et removeGym
     @Transactional(readOnly = true)
-    public List<Gym> findAllGym(){
+    @Cacheable(cacheNames = CacheConfig.GYM_LIST, key = "'all'")
+    public List<GymView> findAllGym(){
         LOGGER.info("Fetching gyms");
-        return gymRepository.findAll();
+        return gymRepository.findAllViews();
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.GYMS, key = "#gymId"),
+            @CacheEvict(cacheNames = CacheConfig.GYM_LIST, allEntries = true)
+    })
     public void removeGym(long gymId){
-        if(gymRepository.existsById(gymId))
+        if(!gymRepository.existsById(gymId))
             throw new EntityNotFoundException("Gym with Id : " + gymId + " not found");
         gymRepository.deleteById(gymId);
     }
 
     public Gym readGym(long id){
-        Optional<Gym> gym = gymRepository.findById(id);
-        if(!gymRepository.existsById(id) || gym.isEmpty())
-            throw new EntityNotFoundException("Gym not found");
-        return gym.get();
+        return gymRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Gym not found"));
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.GYMS, key = "#id")
+    public GymView readGymView(long id){
+        return GymView.from(readGym(id));
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.GYMS, key = "#gym.id"),
+            @CacheEvict(cacheNames = CacheConfig.GYM_LIST, allEntries = true)
+    })
     public Gym updateGym(Gym gym){
         if(gym.getId() == null || !gymRepository.existsById(gym.getId()))
             throw new EntityNotFoundException("Gym with id : " + gym.getId() + " not found");
@@ -51,6 +69,7 @@ public class GymService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.GYM_LIST, allEntries = true)
     public Gym createGym(Gym gym){
         if(gym.getName() == null || gym.getName().isEmpty())
             throw new IllegalArgumentException("Gym name cannot be empty");
@@ -0,0 +1,174 @@
+package com.smartsalle.main.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Arbre d'intervalles semi-ouverts [start, end) : arbre AVL trié sur (start, end, valeur),
+ * chaque nœud portant la fin maximale de son sous-arbre.
+ * Ajout et suppression en O(log n), recherche des k intervalles qui chevauchent une plage en O(log n + k).
+ * Non synchronisé : l'appelant (ScheduleConflictIndex) sérialise les accès.
+ */
+class IntervalTree<T> {
+
+    private final Comparator<T> valueOrder;
+    private Node<T> root;
+    private int size;
+
+    IntervalTree(Comparator<T> valueOrder) {
+        this.valueOrder = valueOrder;
+    }
+
+    void insert(long start, long end, T value) {
+        root = insert(root, new Node<>(start, end, value));
+        size++;
+    }
+
+    boolean remove(long start, long end, T value) {
+        int before = size;
+        root = remove(root, start, end, value);
+        return size < before;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Intervalles qui chevauchent [from, to), dans l'ordre de leur début
+    List<T> overlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    private void collect(Node<T> node, long from, long to, List<T> result) {
+        // Aucun intervalle du sous-arbre ne se termine après from
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.start >= to) {
+            // Le sous-arbre droit commence encore plus tard
+            return;
+        }
+        if (node.end > from) {
+            result.add(node.value);
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private int compare(long start, long end, T value, Node<T> node) {
+        int order = Long.compare(start, node.start);
+        if (order == 0) {
+            order = Long.compare(end, node.end);
+        }
+        return order != 0 ? order : valueOrder.compare(value, node.value);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.end, added.value, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> remove(Node<T> node, long start, long end, T value) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, end, value, node);
+        if (order < 0) {
+            node.left = remove(node.left, start, end, value);
+        } else if (order > 0) {
+            node.right = remove(node.right, start, end, value);
+        } else {
+            size--;
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+            // Remplacé par son successeur, retiré du sous-arbre droit
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            size++;
+            node.right = remove(node.right, successor.start, successor.end, successor.value);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long maxEnd(Node<?> node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    private static class Node<T> {
+        private final long start;
+        private final long end;
+        private final T value;
+        private long maxEnd;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(long start, long end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+}
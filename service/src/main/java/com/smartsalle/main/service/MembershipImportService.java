@@ -0,0 +1,382 @@
+package com.smartsalle.main.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsalle.main.model.MembershipImportReport;
+import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.repository.GymRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import en masse d'adhésions (CSV ou NDJSON) pour une salle.
+ * Le flux est lu ligne par ligne et traité par lots : une recherche groupée des utilisateurs existants par email,
+ * des identifiants réservés d'un coup dans la séquence, puis des INSERT en batch JDBC. Chaque lot a sa propre
+ * transaction ; une ligne invalide est signalée sans bloquer les autres.
+ */
+@Service
+public class MembershipImportService {
+
+    private static final Logger LOGGER = LogManager.getLogger(MembershipImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Pas des séquences users_id_seq et memberships_id_seq (allocationSize des entités, cf. V5__pooled_id_sequences.sql)
+    static final int ID_BLOCK_SIZE = 50;
+
+    // Mêmes noms de champs que MembershipRequest, en en-tête CSV comme en clés JSON
+    private static final List<String> COLUMNS = List.of("userEmail", "userFirstName", "userLastName", "userPhone", "startDate", "endDate");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GymRepository gymRepository;
+    private final ObjectMapper objectMapper;
+
+    public MembershipImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   GymRepository gymRepository, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.gymRepository = gymRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public MembershipImportReport importCsv(Long gymId, BufferedReader reader) {
+        requireGym(gymId);
+        Import run = new Import(gymId);
+        try {
+            String header = reader.readLine();
+            if (header == null) {
+                return run.report();
+            }
+            List<String> names = splitCsv(header);
+            int[] positions = COLUMNS.stream().mapToInt(column -> names.indexOf(column)).toArray();
+            if (positions[0] < 0) {
+                throw new IllegalArgumentException("CSV header must contain a userEmail column.");
+            }
+            long line = 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                List<String> cells = splitCsv(text);
+                String[] values = new String[COLUMNS.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = positions[i] >= 0 && positions[i] < cells.size() ? cells.get(positions[i]) : null;
+                }
+                run.add(new ImportRow(line, values));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return run.finish();
+    }
+
+    public MembershipImportReport importNdjson(Long gymId, BufferedReader reader) {
+        requireGym(gymId);
+        Import run = new Import(gymId);
+        try {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    run.reject(line, null, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                String[] values = new String[COLUMNS.size()];
+                for (int i = 0; i < values.length; i++) {
+                    JsonNode value = node.get(COLUMNS.get(i));
+                    values[i] = value == null || value.isNull() ? null : value.asText();
+                }
+                run.add(new ImportRow(line, values));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return run.finish();
+    }
+
+    private void requireGym(Long gymId) {
+        if (!gymRepository.existsById(gymId))
+            throw new EntityNotFoundException("Gym not found with id: " + gymId);
+    }
+
+    // Découpage CSV minimal : séparateur virgule, champs entre guillemets avec "" pour un guillemet
+    static List<String> splitCsv(String text) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().trim());
+        return cells;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private record ImportRow(long line, String[] values) {
+        String email() { return emptyToNull(values[0]); }
+        String firstName() { return emptyToNull(values[1]); }
+        String lastName() { return emptyToNull(values[2]); }
+        String phone() { return emptyToNull(values[3]); }
+        String startDate() { return emptyToNull(values[4]); }
+        String endDate() { return emptyToNull(values[5]); }
+    }
+
+    private record ValidRow(ImportRow row, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record ChunkResult(int imported, int usersCreated, List<MembershipImportReport.RowError> rowErrors) {
+    }
+
+    // État d'un import en cours : lot courant et compteurs du bilan
+    private final class Import {
+        private final Long gymId;
+        private final List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<MembershipImportReport.RowError> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long usersCreated;
+        private long failed;
+
+        Import(Long gymId) {
+            this.gymId = gymId;
+        }
+
+        void add(ImportRow row) {
+            rows++;
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(long line, String email, String message) {
+            rows++;
+            fail(line, email, message);
+        }
+
+        MembershipImportReport finish() {
+            flush();
+            LOGGER.info("Membership import for gym {}: {} rows, {} imported, {} users created, {} failed",
+                    gymId, rows, imported, usersCreated, failed);
+            return report();
+        }
+
+        MembershipImportReport report() {
+            return new MembershipImportReport(rows, imported, usersCreated, failed, errors);
+        }
+
+        private void fail(long line, String email, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new MembershipImportReport.RowError(line, email, message));
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ValidRow> valid = validate(chunk);
+            chunk.clear();
+            if (valid.isEmpty()) {
+                return;
+            }
+            try {
+                ChunkResult result = transactionTemplate.execute(status -> write(valid));
+                imported += result.imported();
+                usersCreated += result.usersCreated();
+                result.rowErrors().forEach(error -> fail(error.line(), error.email(), error.message()));
+            } catch (DataAccessException e) {
+                // Conflit concurrent (email ou téléphone inséré entre-temps) : le lot entier est annulé
+                LOGGER.warn("Membership import chunk rolled back: {}", e.getMostSpecificCause().getMessage());
+                for (ValidRow validRow : valid) {
+                    fail(validRow.row().line(), validRow.row().email(), "Chunk rolled back: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        private List<ValidRow> validate(List<ImportRow> rows) {
+            List<ValidRow> valid = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                if (row.email() == null || !row.email().contains("@")) {
+                    fail(row.line(), row.email(), "A valid userEmail is required.");
+                    continue;
+                }
+                try {
+                    LocalDate startDate = row.startDate() != null ? LocalDate.parse(row.startDate()) : null;
+                    LocalDate endDate = row.endDate() != null ? LocalDate.parse(row.endDate()) : null;
+                    if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+                        fail(row.line(), row.email(), "endDate must not be before startDate.");
+                        continue;
+                    }
+                    valid.add(new ValidRow(row, startDate, endDate));
+                } catch (DateTimeParseException e) {
+                    fail(row.line(), row.email(), "Dates must use the ISO format yyyy-MM-dd.");
+                }
+            }
+            return valid;
+        }
+
+        // Écrit un lot dans la transaction courante ; les erreurs de ligne ne sont retenues que si le lot est validé
+        private ChunkResult write(List<ValidRow> rows) {
+            List<MembershipImportReport.RowError> rowErrors = new ArrayList<>();
+            Map<String, Long> userIds = findUserIds(rows.stream().map(validRow -> validRow.row().email()).distinct().toList());
+
+            // Nouveaux utilisateurs : une ligne par email inconnu, le téléphone (unique) est obligatoire
+            Map<String, ImportRow> newUsers = new LinkedHashMap<>();
+            for (ValidRow validRow : rows) {
+                ImportRow row = validRow.row();
+                if (!userIds.containsKey(row.email()) && !newUsers.containsKey(row.email())) {
+                    newUsers.put(row.email(), row);
+                }
+            }
+            Set<String> takenPhones = findExistingPhones(newUsers.values().stream()
+                    .map(ImportRow::phone).filter(phone -> phone != null).distinct().toList());
+            Set<String> rejectedEmails = new HashSet<>();
+            Set<String> chunkPhones = new HashSet<>();
+            List<ImportRow> usersToInsert = new ArrayList<>();
+            for (ImportRow row : newUsers.values()) {
+                if (row.phone() == null) {
+                    rejectedEmails.add(row.email());
+                    rowErrors.add(new MembershipImportReport.RowError(row.line(), row.email(), "userPhone is required to create a new member."));
+                } else if (takenPhones.contains(row.phone()) || !chunkPhones.add(row.phone())) {
+                    rejectedEmails.add(row.email());
+                    rowErrors.add(new MembershipImportReport.RowError(row.line(), row.email(), "Phone " + row.phone() + " is already used by another member."));
+                } else {
+                    usersToInsert.add(row);
+                }
+            }
+            insertUsers(usersToInsert, userIds);
+
+            List<ValidRow> memberships = new ArrayList<>(rows.size());
+            for (ValidRow validRow : rows) {
+                String email = validRow.row().email();
+                if (!rejectedEmails.contains(email)) {
+                    memberships.add(validRow);
+                } else if (newUsers.get(email) != validRow.row()) {
+                    rowErrors.add(new MembershipImportReport.RowError(validRow.row().line(), email, "Member could not be created (see line " + newUsers.get(email).line() + ")."));
+                }
+            }
+            // Id explicite pris dans des blocs réservés : un DEFAULT nextval par ligne consommerait un bloc de 50 ids à chaque INSERT
+            Iterator<Long> membershipIds = reserveIds("memberships_id_seq", memberships.size()).iterator();
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO memberships (id, gym_id, user_id, start_date, end_date) VALUES (?, ?, ?, ?, ?)",
+                    memberships, memberships.size(), (ps, validRow) -> {
+                        ps.setLong(1, membershipIds.next());
+                        ps.setLong(2, gymId);
+                        ps.setLong(3, userIds.get(validRow.row().email()));
+                        ps.setObject(4, validRow.startDate() != null ? Date.valueOf(validRow.startDate()) : null, java.sql.Types.DATE);
+                        ps.setObject(5, validRow.endDate() != null ? Date.valueOf(validRow.endDate()) : null, java.sql.Types.DATE);
+                    });
+            return new ChunkResult(memberships.size(), usersToInsert.size(), rowErrors);
+        }
+
+        // Même découpage que l'optimiseur pooled d'Hibernate : chaque nextval v réserve le bloc [v - 49, v]
+        private List<Long> reserveIds(String sequence, int count) {
+            List<Long> ids = new ArrayList<>(count);
+            while (ids.size() < count) {
+                int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+                for (Long hi : jdbcTemplate.queryForList(
+                        "SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)", Long.class, sequence, blocks)) {
+                    for (long id = Math.max(hi - ID_BLOCK_SIZE + 1, 1); id <= hi && ids.size() < count; id++) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private Map<String, Long> findUserIds(List<String> emails) {
+            Map<String, Long> userIds = new HashMap<>();
+            jdbcTemplate.query("SELECT id, email FROM users WHERE email = ANY (?)",
+                    rs -> {
+                        userIds.put(rs.getString("email"), rs.getLong("id"));
+                    },
+                    (Object) emails.toArray(new String[0]));
+            return userIds;
+        }
+
+        private Set<String> findExistingPhones(List<String> phones) {
+            if (phones.isEmpty()) {
+                return Set.of();
+            }
+            return new HashSet<>(jdbcTemplate.queryForList("SELECT phone FROM users WHERE phone = ANY (?)",
+                    String.class, (Object) phones.toArray(new String[0])));
+        }
+
+        private void insertUsers(List<ImportRow> users, Map<String, Long> userIds) {
+            if (users.isEmpty()) {
+                return;
+            }
+            // Identifiants réservés d'avance : les INSERT n'ont plus besoin de RETURNING et partent en batch
+            List<Long> ids = reserveIds("users_id_seq", users.size());
+            for (int i = 0; i < users.size(); i++) {
+                userIds.put(users.get(i).email(), ids.get(i));
+            }
+            // organization est unique et obligatoire : l'email sert de valeur par défaut ; le mot de passe est géré par Supabase
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO users (id, email, first_name, last_name, phone, organization, password_hash, role) VALUES (?, ?, ?, ?, ?, ?, '', ?)",
+                    users, users.size(), (ps, row) -> {
+                        ps.setLong(1, userIds.get(row.email()));
+                        ps.setString(2, row.email());
+                        ps.setString(3, row.firstName());
+                        ps.setString(4, row.lastName());
+                        ps.setString(5, row.phone());
+                        ps.setString(6, row.email());
+                        ps.setString(7, UserRole.CLIENT.name());
+                    });
+        }
+    }
+}
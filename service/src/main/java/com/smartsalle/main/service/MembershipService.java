@@ -4,16 +4,20 @@ import com.smartsalle.main.model.Gym;
 import com.smartsalle.main.model.Membership;
 import com.smartsalle.main.model.MembershipRequest;
 import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserView;
 import com.smartsalle.main.repository.GymRepository;
 import com.smartsalle.main.repository.MembershipRepository;
 import com.smartsalle.main.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class MembershipService {
@@ -27,12 +31,23 @@ public class MembershipService {
         this.gymRepository = gymRepository;
     }
 
-    public List<User> findGymMembers(Long gymId){
-        List<Membership> memberships = membershipRepository.findByGymId(gymId);
-        return memberships.stream()
-                .map(Membership::getUser)
-                .distinct()
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<UserView> findGymMembers(Long gymId, Pageable pageable){
+        if (!gymRepository.existsById(gymId))
+            throw new EntityNotFoundException("Gym not found with id: " + gymId);
+        return membershipRepository.findGymMembers(gymId, pageable);
+    }
+
+    // Parcours complet des membres d'une salle, ligne par ligne ; retourne le nombre de membres transmis
+    @Transactional(readOnly = true)
+    public long streamGymMembers(Long gymId, Consumer<UserView> consumer){
+        long count = 0;
+        try (Stream<UserView> members = membershipRepository.streamGymMembers(gymId)) {
+            for (Iterator<UserView> it = members.iterator(); it.hasNext(); count++) {
+                consumer.accept(it.next());
+            }
+        }
+        return count;
     }
 
     @Transactional
@@ -0,0 +1,112 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.AttendanceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pousse les passages validés et l'occupation courante aux écrans d'accueil abonnés en STOMP :
+ * /topic/attendance (toutes salles) et /topic/gyms/{gymId}/occupancy.
+ * Les passages sont mis en file après le commit et regroupés : au plus un message par topic et par intervalle,
+ * avec l'occupation lue dans l'OccupancyIndex au moment de l'envoi.
+ */
+@Component
+public class OccupancyBroadcaster {
+
+    static final String ATTENDANCE_TOPIC = "/topic/attendance";
+    static final String GYM_OCCUPANCY_TOPIC = "/topic/gyms/%d/occupancy";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final OccupancyIndex occupancyIndex;
+    private final int maxEvents;
+
+    private final Object lock = new Object();
+    private List<AttendanceEvent> pendingEvents = new ArrayList<>();
+    private Set<Long> changedGyms = new HashSet<>();
+    private int droppedEvents;
+
+    public OccupancyBroadcaster(SimpMessagingTemplate messagingTemplate, OccupancyIndex occupancyIndex,
+                                @Value("${attendance.push.max-events:500}") int maxEvents) {
+        this.messagingTemplate = messagingTemplate;
+        this.occupancyIndex = occupancyIndex;
+        this.maxEvents = maxEvents;
+    }
+
+    // Appelé dans la transaction du passage : rien n'est envoyé si elle est annulée
+    public void publish(AttendanceEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(event);
+            }
+        });
+    }
+
+    private void enqueue(AttendanceEvent event) {
+        synchronized (lock) {
+            // Rafale au-delà de max-events : l'occupation reste exacte, seul le détail des passages est tronqué
+            if (pendingEvents.size() < maxEvents) {
+                pendingEvents.add(event);
+            } else {
+                droppedEvents++;
+            }
+            changedGyms.add(event.gymId() != null ? event.gymId() : OccupancyIndex.NO_GYM);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${attendance.push.interval-ms:1000}")
+    public void flush() {
+        List<AttendanceEvent> events;
+        Set<Long> gyms;
+        int dropped;
+        synchronized (lock) {
+            if (changedGyms.isEmpty()) {
+                return;
+            }
+            events = pendingEvents;
+            gyms = changedGyms;
+            dropped = droppedEvents;
+            pendingEvents = new ArrayList<>();
+            changedGyms = new HashSet<>();
+            droppedEvents = 0;
+        }
+
+        Map<Long, Integer> occupancyByGym = occupancyIndex.countByGym();
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> update = new HashMap<>();
+        update.put("currentOccupancy", occupancyByGym.values().stream().mapToInt(Integer::intValue).sum());
+        update.put("occupancyByGym", occupancyByGym);
+        update.put("events", events);
+        update.put("droppedEvents", dropped);
+        update.put("timestamp", now);
+        messagingTemplate.convertAndSend(ATTENDANCE_TOPIC, update);
+
+        for (Long gymId : gyms) {
+            if (gymId == OccupancyIndex.NO_GYM) {
+                continue;
+            }
+            Map<String, Object> gymUpdate = new HashMap<>();
+            gymUpdate.put("gymId", gymId);
+            gymUpdate.put("currentOccupancy", occupancyByGym.getOrDefault(gymId, 0));
+            gymUpdate.put("events", events.stream().filter(event -> gymId.equals(event.gymId())).toList());
+            gymUpdate.put("timestamp", now);
+            messagingTemplate.convertAndSend(String.format(GYM_OCCUPANCY_TOPIC, gymId), gymUpdate);
+        }
+    }
+}
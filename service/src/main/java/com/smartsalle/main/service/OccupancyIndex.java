@@ -0,0 +1,157 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.AttendanceRecord;
+import com.smartsalle.main.repository.AttendanceRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Index en mémoire des membres actuellement présents dans la salle (check-in sans check-out).
+ * Chargé depuis la base au démarrage puis maintenu à chaque check-in / check-out,
+ * il permet de répondre à "ce membre est absent" sans aller-retour SQL.
+ * <p>
+ * L'index est propre à chaque instance : la référence reste l'index unique partiel
+ * uk_attendance_records_user_open (un seul passage ouvert par membre). Un "présent" de l'index
+ * est revérifié en base (check-out traité par une autre instance), et les comptes par salle
+ * ne voient que les passages connus de cette instance.
+ */
+@Component
+public class OccupancyIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(OccupancyIndex.class);
+
+    public static final long NO_GYM = 0L;
+
+    private final AttendanceRepository attendanceRepository;
+
+    // memberId -> check-in actif. Une entrée sans attendanceRecordId est une réservation en cours d'insertion.
+    private final Map<Long, ActiveCheckIn> activeCheckIns = new ConcurrentHashMap<>();
+
+    public OccupancyIndex(AttendanceRepository attendanceRepository) {
+        this.attendanceRepository = attendanceRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        List<Object[]> rows = attendanceRepository.findAllActiveCheckIns();
+        for (Object[] row : rows) {
+            Long memberId = (Long) row[0];
+            // putIfAbsent : un check-in arrivé pendant le chargement reste prioritaire
+            activeCheckIns.putIfAbsent(memberId, new ActiveCheckIn(memberId, (Long) row[1], (LocalDateTime) row[2], (Long) row[3]));
+        }
+        LOGGER.info("Occupancy index warmed up with {} active check-ins", activeCheckIns.size());
+    }
+
+    /**
+     * Réserve la place du membre dans l'index pour la transaction courante.
+     * Retourne false si le membre a déjà un check-in actif (ou en cours) dans cet index : à confirmer en base.
+     * La réservation est libérée automatiquement si la transaction est annulée.
+     */
+    public boolean tryCheckIn(Long memberId) {
+        ActiveCheckIn reservation = new ActiveCheckIn(memberId, null, LocalDateTime.now(), null);
+        if (activeCheckIns.putIfAbsent(memberId, reservation) != null) {
+            return false;
+        }
+        releaseOnRollback(memberId, reservation);
+        return true;
+    }
+
+    // L'entrée du membre est périmée (aucun passage ouvert en base) : remplacée par une réservation pour la transaction courante
+    public void reclaim(Long memberId) {
+        ActiveCheckIn reservation = new ActiveCheckIn(memberId, null, LocalDateTime.now(), null);
+        activeCheckIns.put(memberId, reservation);
+        releaseOnRollback(memberId, reservation);
+    }
+
+    // remove(clé, valeur) : une annulation ne retire pas l'entrée posée entre-temps par une autre transaction
+    private void releaseOnRollback(Long memberId, ActiveCheckIn reservation) {
+        afterCompletion(committed -> {
+            if (!committed) {
+                activeCheckIns.remove(memberId, reservation);
+            }
+        });
+    }
+
+    public void checkedIn(AttendanceRecord attendanceRecord) {
+        Long memberId = attendanceRecord.getUser().getId();
+        Long gymId = attendanceRecord.getGym() != null ? attendanceRecord.getGym().getId() : null;
+        activeCheckIns.put(memberId, new ActiveCheckIn(memberId, attendanceRecord.getId(), attendanceRecord.getCheckInTime(), gymId));
+    }
+
+    public void checkedOut(Long memberId) {
+        afterCompletion(committed -> {
+            if (committed) {
+                activeCheckIns.remove(memberId);
+            }
+        });
+    }
+
+    public Optional<ActiveCheckIn> findActiveCheckIn(Long memberId) {
+        ActiveCheckIn activeCheckIn = activeCheckIns.get(memberId);
+        if (activeCheckIn == null || activeCheckIn.getAttendanceRecordId() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(activeCheckIn);
+    }
+
+    public List<ActiveCheckIn> getActiveCheckIns() {
+        List<ActiveCheckIn> result = new ArrayList<>();
+        for (ActiveCheckIn activeCheckIn : activeCheckIns.values()) {
+            if (activeCheckIn.getAttendanceRecordId() != null) {
+                result.add(activeCheckIn);
+            }
+        }
+        return result;
+    }
+
+    // Nombre de membres présents par salle ; les passages sans salle sont comptés sous la clé 0
+    public Map<Long, Integer> countByGym() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (ActiveCheckIn activeCheckIn : activeCheckIns.values()) {
+            if (activeCheckIn.getAttendanceRecordId() != null) {
+                counts.merge(activeCheckIn.getGymId() != null ? activeCheckIn.getGymId() : NO_GYM, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ActiveCheckIn {
+        private final Long memberId;
+        private final Long attendanceRecordId;
+        private final LocalDateTime checkInTime;
+        private final Long gymId;
+    }
+}
@@ -0,0 +1,149 @@
+package com.smartsalle.main.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passe en OVERDUE les paiements PENDING dont l'échéance est dépassée.
+ * Les paiements sont parcourus par lots dans l'ordre (due_date, id) ; chaque lot est verrouillé (SKIP LOCKED),
+ * mis à jour en un seul UPDATE et reporté dans le grand livre, dans sa propre transaction.
+ * Sur plusieurs instances, un bail en base (SchedulerLease) réserve le parcours à une seule d'entre elles.
+ */
+@Service
+public class OverduePaymentScheduler {
+
+    private static final Logger LOGGER = LogManager.getLogger(OverduePaymentScheduler.class);
+
+    static final String LEASE_NAME = "payments.overdue";
+    // Renouvelé avant chaque lot : une instance arrêtée en cours de route libère le parcours après ce délai
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(2);
+
+    private static final String FROM_STATUS = "PENDING";
+    private static final String TO_STATUS = "OVERDUE";
+
+    private static final String SELECT_CHUNK = "SELECT p.id, p.due_date, p.currency, p.amount_minor, COALESCE(m.gym_id, s.gym_id, 0) AS gym_id " +
+            "FROM payments p " +
+            "LEFT JOIN memberships m ON m.id = p.membership_id " +
+            "LEFT JOIN bookings b ON b.id = p.booking_id " +
+            "LEFT JOIN sessions s ON s.id = b.session_id " +
+            "WHERE p.status = ? AND p.due_date < ? AND (p.due_date, p.id) > (?, ?) " +
+            "ORDER BY p.due_date, p.id LIMIT ? " +
+            "FOR UPDATE OF p SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLease schedulerLease;
+    private final PaymentLedgerService paymentLedgerService;
+    private final int chunkSize;
+
+    private final Counter transitions;
+    private final Timer runTimer;
+    // Débit du dernier parcours ayant traité des paiements (les parcours à vide ne l'écrasent pas)
+    private final AtomicLong lastRunRowsPerSecond = new AtomicLong();
+
+    public OverduePaymentScheduler(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, SchedulerLease schedulerLease,
+                                   PaymentLedgerService paymentLedgerService, MeterRegistry meterRegistry,
+                                   @Value("${payments.overdue.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.schedulerLease = schedulerLease;
+        this.paymentLedgerService = paymentLedgerService;
+        this.chunkSize = chunkSize;
+        this.transitions = Counter.builder("payments.overdue.transitions")
+                .description("Payments moved from PENDING to OVERDUE").register(meterRegistry);
+        this.runTimer = Timer.builder("payments.overdue.run")
+                .description("Duration of an overdue payment scan").register(meterRegistry);
+        meterRegistry.gauge("payments.overdue.last_run.rows_per_second", lastRunRowsPerSecond);
+    }
+
+    @Scheduled(cron = "${payments.overdue.cron:0 */15 * * * *}")
+    public void markOverduePayments() {
+        markOverdue(LocalDate.now());
+    }
+
+    // Retourne le nombre de paiements passés en OVERDUE par cette instance (0 si le bail est pris ailleurs)
+    public long markOverdue(LocalDate today) {
+        if (!schedulerLease.tryAcquire(LEASE_NAME, LEASE_DURATION)) {
+            LOGGER.debug("Overdue payment scan skipped: lease held by another instance");
+            return 0;
+        }
+        long start = System.nanoTime();
+        long moved = 0;
+        try {
+            // Curseur (due_date, id) : les lignes verrouillées par une autre transaction sont sautées, pas relues
+            LocalDate afterDueDate = LocalDate.of(1, 1, 1);
+            long afterId = 0;
+            while (true) {
+                LocalDate cursorDueDate = afterDueDate;
+                long cursorId = afterId;
+                List<OverdueRow> chunk = transactionTemplate.execute(status -> transitionChunk(today, cursorDueDate, cursorId));
+                if (chunk == null || chunk.isEmpty()) {
+                    break;
+                }
+                moved += chunk.size();
+                transitions.increment(chunk.size());
+                OverdueRow last = chunk.get(chunk.size() - 1);
+                afterDueDate = last.dueDate();
+                afterId = last.id();
+                if (chunk.size() < chunkSize || !schedulerLease.tryAcquire(LEASE_NAME, LEASE_DURATION)) {
+                    break;
+                }
+            }
+        } finally {
+            schedulerLease.release(LEASE_NAME);
+            long elapsed = System.nanoTime() - start;
+            runTimer.record(Duration.ofNanos(elapsed));
+            if (moved > 0) {
+                lastRunRowsPerSecond.set(Math.round(moved / (elapsed / 1_000_000_000.0)));
+            }
+        }
+        if (moved > 0) {
+            LOGGER.info("Marked {} payments overdue ({} rows/s)", moved, lastRunRowsPerSecond.get());
+        }
+        return moved;
+    }
+
+    private List<OverdueRow> transitionChunk(LocalDate today, LocalDate afterDueDate, long afterId) {
+        List<OverdueRow> rows = jdbcTemplate.query(SELECT_CHUNK,
+                (rs, rowNum) -> new OverdueRow(rs.getLong("id"), rs.getObject("due_date", LocalDate.class),
+                        rs.getLong("gym_id"), rs.getString("currency"), rs.getLong("amount_minor")),
+                FROM_STATUS, today, afterDueDate, afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Long[] ids = rows.stream().map(OverdueRow::id).toArray(Long[]::new);
+        jdbcTemplate.update("UPDATE payments SET status = ? WHERE id = ANY (?)", TO_STATUS, ids);
+
+        // Une écriture du grand livre par (mois, salle, devise) et non par paiement
+        Map<LedgerKey, long[]> totals = new HashMap<>();
+        for (OverdueRow row : rows) {
+            long[] total = totals.computeIfAbsent(new LedgerKey(row.dueDate().withDayOfMonth(1), row.gymId(), row.currency()), key -> new long[2]);
+            total[0]++;
+            total[1] = Math.addExact(total[1], row.amountMinor());
+        }
+        totals.forEach((key, total) -> paymentLedgerService.recordBulkStatusChange(key.month(), key.gymId(), key.currency(),
+                FROM_STATUS, TO_STATUS, total[0], total[1]));
+        return rows;
+    }
+
+    private record OverdueRow(long id, LocalDate dueDate, long gymId, String currency, long amountMinor) {
+    }
+
+    private record LedgerKey(LocalDate month, long gymId, String currency) {
+    }
+}
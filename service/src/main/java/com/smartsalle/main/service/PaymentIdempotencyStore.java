@@ -0,0 +1,48 @@
+package com.smartsalle.main.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Clés d'idempotence récentes des créations de paiement : (membre, clé) -> id du paiement créé.
+ * Borné en taille et en durée ; au-delà, la contrainte unique payments(user_id, idempotency_key) prend le relais.
+ * Le futur est enregistré avant la création : une requête concurrente avec la même clé attend son résultat
+ * au lieu d'insérer une seconde ligne.
+ */
+@Component
+public class PaymentIdempotencyStore {
+
+    private final Cache<Key, CompletableFuture<Long>> paymentIds;
+
+    public PaymentIdempotencyStore(@Value("${payments.idempotency.ttl:24h}") Duration ttl,
+                                   @Value("${payments.idempotency.max-keys:100000}") long maxKeys) {
+        this.paymentIds = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxKeys)
+                .build();
+    }
+
+    // Retourne le futur déjà enregistré pour cette clé, ou null si l'appelant doit créer le paiement puis appeler completed/failed
+    public CompletableFuture<Long> claim(Long userId, String idempotencyKey, CompletableFuture<Long> pending) {
+        return paymentIds.asMap().putIfAbsent(new Key(userId, idempotencyKey), pending);
+    }
+
+    public void completed(CompletableFuture<Long> pending, Long paymentId) {
+        pending.complete(paymentId);
+    }
+
+    // Échec de la création : la clé est libérée pour une nouvelle tentative, les requêtes en attente reçoivent l'erreur
+    public void failed(Long userId, String idempotencyKey, CompletableFuture<Long> pending, RuntimeException error) {
+        if (pending.completeExceptionally(error)) {
+            paymentIds.asMap().remove(new Key(userId, idempotencyKey), pending);
+        }
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+}
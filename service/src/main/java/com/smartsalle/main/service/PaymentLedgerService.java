@@ -0,0 +1,109 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.Money;
+import com.smartsalle.main.model.Payment;
+import com.smartsalle.main.repository.PaymentLedgerMonth;
+import com.smartsalle.main.repository.PaymentLedgerRepository;
+import com.smartsalle.main.repository.PaymentLedgerTotals;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintient la table payment_ledger (nombre et montant des paiements par mois d'échéance, salle, statut et devise)
+ * à chaque création et changement de statut de paiement, et répond aux statistiques de revenus
+ * sans parcourir la table payments. Les totaux par statut sont relus à chaque appel : le grand livre ne compte
+ * que quelques lignes, et une copie en mémoire ne verrait pas les écritures des autres instances (passage en OVERDUE).
+ * Le contenu initial est reconstruit depuis payments par la migration V18.
+ */
+@Service
+public class PaymentLedgerService {
+
+    // Salle "0" : paiement sans adhésion ni réservation (saisie libre)
+    private static final long NO_GYM = 0L;
+
+    private final PaymentLedgerRepository ledgerRepository;
+
+    public PaymentLedgerService(PaymentLedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    // Appelé dans la transaction de création du paiement
+    @Transactional
+    public void recordCreated(Payment payment) {
+        ledgerRepository.increment(monthOf(payment), gymOf(payment), payment.getStatus(), payment.getCurrency(), 1, payment.getAmountMinor());
+    }
+
+    // Appelé dans la transaction qui fait passer le paiement de previousStatus à son statut courant
+    @Transactional
+    public void recordStatusChange(Payment payment, String previousStatus) {
+        if (payment.getStatus().equals(previousStatus)) {
+            return;
+        }
+        LocalDate month = monthOf(payment);
+        long gymId = gymOf(payment);
+        ledgerRepository.increment(month, gymId, previousStatus, payment.getCurrency(), -1, -payment.getAmountMinor());
+        ledgerRepository.increment(month, gymId, payment.getStatus(), payment.getCurrency(), 1, payment.getAmountMinor());
+    }
+
+    // Changement de statut groupé (ex. OverduePaymentScheduler) : count paiements et amountMinor cumulés d'une même ligne
+    @Transactional
+    public void recordBulkStatusChange(LocalDate month, long gymId, String currency, String previousStatus, String status,
+                                       long count, long amountMinor) {
+        ledgerRepository.increment(month, gymId, previousStatus, currency, -count, -amountMinor);
+        ledgerRepository.increment(month, gymId, status, currency, count, amountMinor);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, PaymentLedgerTotals> getTotalsByStatus(String currency) {
+        Map<String, PaymentLedgerTotals> totals = new HashMap<>();
+        for (PaymentLedgerTotals row : ledgerRepository.sumByStatus(currency)) {
+            totals.put(row.getStatus(), row);
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    // Série mensuelle [from, to) ; les mois sans paiement sont présents avec des totaux nuls
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMonthlySeries(LocalDate from, LocalDate to, Long gymId, String status, String currency) {
+        LocalDate firstMonth = from.withDayOfMonth(1);
+        Map<LocalDate, PaymentLedgerMonth> rows = new HashMap<>();
+        for (PaymentLedgerMonth row : ledgerRepository.sumByMonth(firstMonth, to, status, currency, gymId)) {
+            rows.put(row.getMonth(), row);
+        }
+        List<Map<String, Object>> series = new ArrayList<>();
+        for (LocalDate month = firstMonth; month.isBefore(to); month = month.plusMonths(1)) {
+            PaymentLedgerMonth row = rows.get(month);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("month", month);
+            entry.put("payments", row != null && row.getPayments() != null ? row.getPayments() : 0L);
+            Money amount = new Money(row != null && row.getAmountMinor() != null ? row.getAmountMinor() : 0L, currency);
+            entry.put("amount", amount.toDecimal());
+            entry.put("amountMinor", amount.minorUnits());
+            entry.put("currency", amount.currency());
+            series.add(entry);
+        }
+        return series;
+    }
+
+    // Même règle que la migration V18 : mois d'échéance, fixé à la création (due_date obligatoire)
+    private LocalDate monthOf(Payment payment) {
+        return payment.getDueDate().withDayOfMonth(1);
+    }
+
+    private long gymOf(Payment payment) {
+        if (payment.getMembership() != null) {
+            return payment.getMembership().getGym().getId();
+        }
+        if (payment.getBooking() != null) {
+            return payment.getBooking().getSession().getGym().getId();
+        }
+        return NO_GYM;
+    }
+}
@@ -1,40 +1,75 @@
 package com.smartsalle.main.service;
 
+import com.smartsalle.main.config.AuthenticatedUserToken;
 import com.smartsalle.main.model.Membership;
+import com.smartsalle.main.model.Money;
 import com.smartsalle.main.model.Payment;
+import com.smartsalle.main.model.PaymentCreation;
 import com.smartsalle.main.model.PaymentRequest;
+import com.smartsalle.main.model.PaymentView;
 import com.smartsalle.main.model.User;
 import com.smartsalle.main.model.UserRole;
 import com.smartsalle.main.repository.MembershipRepository;
+import com.smartsalle.main.repository.PaymentLedgerTotals;
 import com.smartsalle.main.repository.PaymentRepository;
 import com.smartsalle.main.repository.UserRepository;
+import com.smartsalle.main.repository.specification.FilterSpecifications;
+import com.smartsalle.main.repository.specification.KeysetPager;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
+    private final UserRoleLookup userRoleLookup;
     private final MembershipRepository membershipRepository; // Assuming it exists for membership details
+    private final PaymentLedgerService paymentLedgerService;
+    private final PaymentIdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final String defaultCurrency;
+
+    // Attente maximale d'une requête concurrente portant la même clé d'idempotence
+    private static final long IDEMPOTENT_WAIT_SECONDS = 30;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     @Autowired
-    public PaymentService(PaymentRepository paymentRepository, UserRepository userRepository, MembershipRepository membershipRepository) {
+    public PaymentService(PaymentRepository paymentRepository, UserRepository userRepository, UserRoleLookup userRoleLookup,
+                          MembershipRepository membershipRepository, PaymentLedgerService paymentLedgerService, PaymentIdempotencyStore idempotencyStore,
+                          TransactionTemplate transactionTemplate, @Value("${payments.default-currency:USD}") String defaultCurrency) {
         this.paymentRepository = paymentRepository;
         this.userRepository = userRepository;
+        this.userRoleLookup = userRoleLookup;
         this.membershipRepository = membershipRepository;
+        this.paymentLedgerService = paymentLedgerService;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultCurrency = defaultCurrency.toUpperCase();
     }
 
     @Transactional
@@ -48,40 +83,71 @@ public class PaymentService {
         Payment payment = new Payment();
         payment.setUser(user);
         payment.setMembership(membership);
-        payment.setAmount(paymentRequest.getAmount());
+        payment.setMoney(moneyOf(paymentRequest));
         payment.setPaymentDate(LocalDateTime.now());
         payment.setPaymentMethod(paymentRequest.getPaymentMethod());
         payment.setStatus("PAID"); // Assuming direct payment is successful
         payment.setDueDate(LocalDate.now()); // Or based on membership start date
 
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        paymentLedgerService.recordCreated(savedPayment);
+        return savedPayment;
     }
 
     @Transactional(readOnly = true)
-    public Page<Payment> findAllPayments(Long memberId, String status, LocalDate startDate, LocalDate endDate, int page, int size) {
+    public Page<PaymentView> findAllPayments(Long memberId, String status, LocalDate startDate, LocalDate endDate, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("dueDate").descending());
         User user = null;
         if (memberId != null) {
-            user = userRepository.findByIdAndRole(memberId, UserRole.CLIENT)
+            user = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
                     .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
         }
 
-        if (user != null && status != null && startDate != null && endDate != null) {
-            return paymentRepository.findAllByUserAndStatusAndDueDateBetween(user, status, startDate, endDate, pageable);
-        } else if (user != null && status != null) {
-            return paymentRepository.findAllByUserAndStatus(user, status, pageable);
-        } else if (user != null && startDate != null && endDate != null) {
-            return paymentRepository.findAllByUserAndDueDateBetween(user, startDate, endDate, pageable);
-        } else if (status != null && startDate != null && endDate != null) {
-            return paymentRepository.findAllByStatusAndDueDateBetween(status, startDate, endDate, pageable);
-        } else if (user != null) {
-            return paymentRepository.findAllByUser(user, pageable);
-        } else if (status != null) {
-            return paymentRepository.findAllByStatus(status, pageable);
-        } else if (startDate != null && endDate != null) {
-            return paymentRepository.findAllByDueDateBetween(startDate, endDate, pageable);
+        return paymentRepository.findAll(paymentFilter(user, status, startDate, endDate), pageable).map(PaymentView::from);
+    }
+
+    // Historique d'un membre : adhésion et réservation chargées dans la même requête (graphe Payment.detail)
+    @Transactional(readOnly = true)
+    public List<PaymentView> findMemberPayments(Long memberId) {
+        userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
+                .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
+        return paymentRepository.findByUserIdOrderByDueDateDesc(memberId).stream().map(PaymentView::from).toList();
+    }
+
+    // Contrôles des @PreAuthorize : id interne porté par le jeton (claim "userId"), pas le "sub" du fournisseur d'identité
+    public boolean isMember(Authentication authentication, Long memberId) {
+        Long userId = authenticatedUserId(authentication);
+        return userId != null && userId.equals(memberId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isOwner(Authentication authentication, Long paymentId) {
+        Long userId = authenticatedUserId(authentication);
+        return userId != null && paymentRepository.existsByIdAndUserId(paymentId, userId);
+    }
+
+    private static Long authenticatedUserId(Authentication authentication) {
+        return authentication instanceof AuthenticatedUserToken authenticatedUser ? authenticatedUser.getUserId() : null;
+    }
+
+    // Pagination par clé sur (dueDate, id), sans OFFSET ni COUNT
+    @Transactional(readOnly = true)
+    public Slice<PaymentView> scrollPayments(Long memberId, String status, LocalDate startDate, LocalDate endDate,
+                                             LocalDate afterDueDate, Long afterId, int size) {
+        User user = null;
+        if (memberId != null) {
+            user = userRoleLookup.findByIdAndRole(memberId, UserRole.CLIENT)
+                    .orElseThrow(() -> new EntityNotFoundException("Member not found with id: " + memberId));
         }
-        return paymentRepository.findAll(pageable);
+        return KeysetPager.fetch(paymentRepository, paymentFilter(user, status, startDate, endDate), "dueDate", afterDueDate, afterId, size)
+                .map(PaymentView::from);
+    }
+
+    private Specification<Payment> paymentFilter(User user, String status, LocalDate startDate, LocalDate endDate) {
+        return Specification.allOf(
+                FilterSpecifications.equal("user", user),
+                FilterSpecifications.equal("status", status),
+                FilterSpecifications.between("dueDate", startDate, endDate));
     }
 
     @Transactional(readOnly = true)
@@ -92,40 +158,143 @@ public class PaymentService {
 
     @Transactional
     public Payment updatePaymentStatus(Long id, String status) {
-        Payment payment = findPaymentById(id);
+        // Ligne verrouillée : deux changements concurrents (ou le passage en OVERDUE, qui saute les lignes verrouillées)
+        // ne partent pas du même statut précédent, le grand livre n'est décrémenté qu'une fois
+        Payment payment = paymentRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Payment not found with id: " + id));
+        String previousStatus = payment.getStatus();
         // Add validation for allowed status transitions if necessary
         payment.setStatus(status.toUpperCase());
         if ("PAID".equalsIgnoreCase(status) && payment.getPaymentDate() == null) {
             payment.setPaymentDate(LocalDateTime.now());
         }
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        paymentLedgerService.recordStatusChange(savedPayment, previousStatus);
+        return savedPayment;
     }
 
+    // Lu dans le grand livre (payment_ledger) et non plus sur la table payments ; montants dans la devise demandée
     @Transactional(readOnly = true)
-    public Map<String, Object> getPaymentStats() {
+    public Map<String, Object> getPaymentStats(String currency) {
+        String statsCurrency = currency != null ? currency.toUpperCase() : defaultCurrency;
+        Map<String, PaymentLedgerTotals> totalsByStatus = paymentLedgerService.getTotalsByStatus(statsCurrency);
+        Money totalAmount = Money.zero(statsCurrency);
+        long totalTransactions = 0;
+        for (PaymentLedgerTotals totals : totalsByStatus.values()) {
+            totalAmount = totalAmount.plus(totals.getAmountMinor() != null ? totals.getAmountMinor() : 0L);
+            totalTransactions += totals.getPayments() != null ? totals.getPayments() : 0;
+        }
+
         Map<String, Object> stats = new HashMap<>();
-        Double totalAmount = paymentRepository.sumTotalAmount();
-        Double paidAmount = paymentRepository.sumTotalAmountByStatus("PAID");
-        Double pendingAmount = paymentRepository.sumTotalAmountByStatus("PENDING"); // Assuming PENDING is a status
-
-        stats.put("totalAmount", totalAmount != null ? totalAmount : 0.0);
-        stats.put("paidAmount", paidAmount != null ? paidAmount : 0.0);
-        stats.put("pendingAmount", pendingAmount != null ? pendingAmount : 0.0);
-        // Add more stats as needed, e.g., counts
-        stats.put("totalTransactions", paymentRepository.count());
+        stats.put("currency", statsCurrency);
+        stats.put("totalAmount", totalAmount.toDecimal());
+        stats.put("paidAmount", amountWithStatus(totalsByStatus, "PAID", statsCurrency).toDecimal());
+        stats.put("pendingAmount", amountWithStatus(totalsByStatus, "PENDING", statsCurrency).toDecimal()); // Assuming PENDING is a status
+        stats.put("totalTransactions", totalTransactions);
         return stats;
     }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getRevenueSeries(LocalDate from, LocalDate to, Long gymId, String status, String currency) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return paymentLedgerService.getMonthlySeries(from, to, gymId, status.toUpperCase(),
+                currency != null ? currency.toUpperCase() : defaultCurrency);
+    }
+
+    private Money amountWithStatus(Map<String, PaymentLedgerTotals> totalsByStatus, String status, String currency) {
+        PaymentLedgerTotals totals = totalsByStatus.get(status);
+        return new Money(totals != null && totals.getAmountMinor() != null ? totals.getAmountMinor() : 0L, currency);
+    }
+
+    private Money moneyOf(PaymentRequest paymentRequest) {
+        Money money = Money.of(paymentRequest.getAmount(), paymentRequest.getCurrency() != null ? paymentRequest.getCurrency() : defaultCurrency);
+        if (money.minorUnits() < 0) {
+            throw new IllegalArgumentException("Amount must not be negative");
+        }
+        return money;
+    }
     
-    // This method was in the old PaymentController, adapted here.
-    // The PaymentRequest object might need to be adjusted if it's different from the one used for membership payment.
-    @Transactional
-    public Payment createPayment(PaymentRequest paymentRequest) {
+    /**
+     * Création idempotente : une clé déjà utilisée par ce membre renvoie le paiement d'origine sans rejouer la transaction.
+     * Les doublons concurrents sur cette instance attendent la première requête ; entre instances,
+     * la contrainte unique (user_id, idempotency_key) garantit une seule insertion.
+     */
+    public PaymentCreation createPayment(PaymentRequest paymentRequest, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return new PaymentCreation(transactionTemplate.execute(status -> insertPayment(paymentRequest, null)), false);
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        Long userId = paymentRequest.getUserId();
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+
+        CompletableFuture<Long> pending = new CompletableFuture<>();
+        CompletableFuture<Long> inFlight = idempotencyStore.claim(userId, idempotencyKey, pending);
+        if (inFlight != null) {
+            return replay(paymentRequest, awaitPaymentId(inFlight));
+        }
+        Payment created = null;
+        Long paymentId;
+        try {
+            Optional<Long> storedId = paymentRepository.findIdByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (storedId.isPresent()) {
+                paymentId = storedId.get();
+            } else {
+                try {
+                    created = transactionTemplate.execute(status -> insertPayment(paymentRequest, idempotencyKey));
+                    paymentId = created.getId();
+                } catch (DataIntegrityViolationException e) {
+                    // Même clé insérée au même moment par une autre instance
+                    paymentId = paymentRepository.findIdByUserIdAndIdempotencyKey(userId, idempotencyKey).orElseThrow(() -> e);
+                }
+            }
+        } catch (RuntimeException e) {
+            idempotencyStore.failed(userId, idempotencyKey, pending, e);
+            throw e;
+        }
+        idempotencyStore.completed(pending, paymentId);
+        return created != null ? new PaymentCreation(created, false) : replay(paymentRequest, paymentId);
+    }
+
+    private Long awaitPaymentId(CompletableFuture<Long> inFlight) {
+        try {
+            return inFlight.get(IDEMPOTENT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Payment creation failed for this Idempotency-Key", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A payment with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a payment with this Idempotency-Key");
+        }
+    }
+
+    // Une clé réutilisée pour un autre paiement (montant, devise ou adhésion différents) est refusée plutôt que rejouée
+    private PaymentCreation replay(PaymentRequest paymentRequest, Long paymentId) {
+        Payment payment = findPaymentById(paymentId);
+        Money requested = moneyOf(paymentRequest);
+        Long membershipId = payment.getMembership() != null ? payment.getMembership().getId() : null;
+        if (!payment.getMoney().equals(requested) || !Objects.equals(membershipId, paymentRequest.getMembershipId())) {
+            throw new IllegalStateException("Idempotency-Key already used for a different payment");
+        }
+        return new PaymentCreation(payment, true);
+    }
+
+    private Payment insertPayment(PaymentRequest paymentRequest, String idempotencyKey) {
         User user = userRepository.findById(paymentRequest.getUserId())
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + paymentRequest.getUserId()));
 
         Payment payment = new Payment();
         payment.setUser(user);
-        payment.setAmount(paymentRequest.getAmount());
+        payment.setMoney(moneyOf(paymentRequest));
         payment.setPaymentMethod(paymentRequest.getPaymentMethod());
         payment.setStatus(paymentRequest.getStatus() != null ? paymentRequest.getStatus().toUpperCase() : "PENDING");
         payment.setDueDate(paymentRequest.getDueDate() != null ? paymentRequest.getDueDate() : LocalDate.now().plusMonths(1)); // Example due date
@@ -141,7 +310,10 @@ public class PaymentService {
             payment.setMembership(membership);
         }
 
-        return paymentRepository.save(payment);
+        payment.setIdempotencyKey(idempotencyKey);
+        Payment savedPayment = paymentRepository.save(payment);
+        paymentLedgerService.recordCreated(savedPayment);
+        return savedPayment;
     }
 }
 
@@ -0,0 +1,279 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.Event;
+import com.smartsalle.main.model.Session;
+import com.smartsalle.main.model.SessionStatus;
+import com.smartsalle.main.model.TimeSlot;
+import com.smartsalle.main.repository.EventRepository;
+import com.smartsalle.main.repository.SessionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index en mémoire des créneaux occupés par coach (Event.instructor, Session.trainer) et par lieu (Event.location),
+ * un arbre d'intervalles par clé. Chargé au démarrage depuis events et sessions, puis tenu à jour à chaque écriture :
+ * une réservation de créneau en conflit est refusée avant d'atteindre la base, sans requête de chevauchement en SQL.
+ * Une réservation est visible dès l'appel (deux créations simultanées ne passent pas toutes les deux)
+ * et annulée si la transaction échoue.
+ * <p>
+ * L'index est propre à chaque instance. Entre événements d'un même instructeur ou d'un même lieu, et entre séances
+ * d'un même coach, les contraintes d'exclusion de V17 garantissent l'absence de chevauchement quel que soit le nombre
+ * d'instances. Un chevauchement entre un événement et une séance du même coach n'est vérifié qu'ici :
+ * cette garantie suppose une seule instance.
+ */
+@Component
+public class ScheduleConflictIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(ScheduleConflictIndex.class);
+
+    // Seuls les créneaux récents ou à venir sont chargés : les écritures portent sur des dates futures
+    private static final Duration LOADED_HISTORY = Duration.ofDays(1);
+
+    private static final Comparator<ScheduledSlot> SLOT_ORDER =
+            Comparator.comparing(ScheduledSlot::source).thenComparing(ScheduledSlot::id);
+
+    private final EventRepository eventRepository;
+    private final SessionRepository sessionRepository;
+
+    private final Map<Long, IntervalTree<ScheduledSlot>> byTrainer = new HashMap<>();
+    private final Map<String, IntervalTree<ScheduledSlot>> byLocation = new HashMap<>();
+    private final Map<SlotKey, ScheduledSlot> slots = new HashMap<>();
+
+    public ScheduleConflictIndex(EventRepository eventRepository, SessionRepository sessionRepository) {
+        this.eventRepository = eventRepository;
+        this.sessionRepository = sessionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minus(LOADED_HISTORY);
+        List<ScheduledSlot> loaded = new ArrayList<>();
+        for (Object[] row : eventRepository.findScheduledSlots(since)) {
+            LocalDateTime start = (LocalDateTime) row[3];
+            loaded.add(new ScheduledSlot(Source.EVENT, (Long) row[0], (Long) row[1], normalizeLocation((String) row[2]),
+                    start, start.plusMinutes((Integer) row[4])));
+        }
+        for (Object[] row : sessionRepository.findScheduledSlots(since)) {
+            loaded.add(new ScheduledSlot(Source.SESSION, (Long) row[0], (Long) row[1], null, (LocalDateTime) row[2], (LocalDateTime) row[3]));
+        }
+        synchronized (this) {
+            // Les créneaux réservés pendant le chargement restent prioritaires
+            for (ScheduledSlot slot : loaded) {
+                if (!slots.containsKey(slot.key())) {
+                    add(slot);
+                }
+            }
+        }
+        LOGGER.info("Schedule conflict index warmed up with {} slots", loaded.size());
+    }
+
+    // Créneau de l'événement ; un événement annulé ou terminé libère le sien
+    public void scheduleEvent(Event event) {
+        String status = event.getStatus();
+        if ("cancelled".equalsIgnoreCase(status) || "completed".equalsIgnoreCase(status)) {
+            release(Source.EVENT, event.getId());
+            return;
+        }
+        reserve(new ScheduledSlot(Source.EVENT, event.getId(),
+                event.getInstructor() != null ? event.getInstructor().getId() : null,
+                normalizeLocation(event.getLocation()),
+                event.getDateTime(), event.getDateTime().plusMinutes(event.getDurationInMinutes())));
+    }
+
+    // Créneau de la séance ; une séance annulée libère le sien
+    public void scheduleSession(Session session) {
+        if (session.getStatus() == SessionStatus.CANCELLED || session.getStartTime() == null || session.getEndTime() == null) {
+            release(Source.SESSION, session.getId());
+            return;
+        }
+        reserve(new ScheduledSlot(Source.SESSION, session.getId(),
+                session.getTrainer() != null ? session.getTrainer().getId() : null, null,
+                session.getStartTime(), session.getEndTime()));
+    }
+
+    /**
+     * Réserve le créneau (remplace le précédent de la même source) pour la transaction courante.
+     * IllegalStateException si le coach ou le lieu est déjà occupé sur la plage.
+     */
+    public synchronized void reserve(ScheduledSlot slot) {
+        if (!slot.end().isAfter(slot.start())) {
+            throw new IllegalArgumentException("Schedule end time must be after its start time.");
+        }
+        for (ScheduledSlot conflict : findConflicts(slot.trainerId(), slot.location(), slot.start(), slot.end())) {
+            if (!conflict.key().equals(slot.key())) {
+                throw new IllegalStateException(describeConflict(slot, conflict));
+            }
+        }
+        ScheduledSlot previous = slots.get(slot.key());
+        if (previous != null) {
+            remove(previous);
+        }
+        add(slot);
+        onRollback(() -> {
+            remove(slot);
+            if (previous != null) {
+                add(previous);
+            }
+        });
+    }
+
+    // Libère le créneau une fois la suppression (ou l'annulation) validée
+    public void release(Source source, Long id) {
+        SlotKey key = new SlotKey(source, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseNow(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseNow(key);
+            }
+        });
+    }
+
+    // Créneaux du coach ou du lieu qui chevauchent [start, end)
+    public synchronized List<ScheduledSlot> findConflicts(Long trainerId, String location, LocalDateTime start, LocalDateTime end) {
+        List<ScheduledSlot> conflicts = new ArrayList<>();
+        if (trainerId != null) {
+            overlapping(byTrainer.get(trainerId), start, end, conflicts);
+        }
+        String normalizedLocation = normalizeLocation(location);
+        if (normalizedLocation != null) {
+            overlapping(byLocation.get(normalizedLocation), start, end, conflicts);
+        }
+        return conflicts;
+    }
+
+    // Plages libres du coach dans [from, to), d'au moins minDuration
+    public synchronized List<TimeSlot> findFreeSlots(Long trainerId, LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        List<ScheduledSlot> busy = new ArrayList<>();
+        overlapping(byTrainer.get(trainerId), from, to, busy);
+        List<TimeSlot> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        // busy est trié par début : chaque créneau repousse le curseur jusqu'à sa fin
+        for (ScheduledSlot slot : busy) {
+            addIfLongEnough(free, cursor, slot.start(), minDuration);
+            if (slot.end().isAfter(cursor)) {
+                cursor = slot.end();
+            }
+        }
+        addIfLongEnough(free, cursor, to, minDuration);
+        return free;
+    }
+
+    private static void addIfLongEnough(List<TimeSlot> free, LocalDateTime start, LocalDateTime end, Duration minDuration) {
+        if (end.isAfter(start) && Duration.between(start, end).compareTo(minDuration) >= 0) {
+            free.add(new TimeSlot(start, end));
+        }
+    }
+
+    private static void overlapping(IntervalTree<ScheduledSlot> tree, LocalDateTime start, LocalDateTime end, List<ScheduledSlot> result) {
+        if (tree != null) {
+            result.addAll(tree.overlapping(toSeconds(start), toSeconds(end)));
+        }
+    }
+
+    private synchronized void releaseNow(SlotKey key) {
+        ScheduledSlot previous = slots.get(key);
+        if (previous != null) {
+            remove(previous);
+        }
+    }
+
+    private void add(ScheduledSlot slot) {
+        slots.put(slot.key(), slot);
+        if (slot.trainerId() != null) {
+            byTrainer.computeIfAbsent(slot.trainerId(), id -> new IntervalTree<>(SLOT_ORDER))
+                    .insert(toSeconds(slot.start()), toSeconds(slot.end()), slot);
+        }
+        if (slot.location() != null) {
+            byLocation.computeIfAbsent(slot.location(), location -> new IntervalTree<>(SLOT_ORDER))
+                    .insert(toSeconds(slot.start()), toSeconds(slot.end()), slot);
+        }
+    }
+
+    private void remove(ScheduledSlot slot) {
+        slots.remove(slot.key(), slot);
+        if (slot.trainerId() != null) {
+            removeFrom(byTrainer, slot.trainerId(), slot);
+        }
+        if (slot.location() != null) {
+            removeFrom(byLocation, slot.location(), slot);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, IntervalTree<ScheduledSlot>> trees, K key, ScheduledSlot slot) {
+        IntervalTree<ScheduledSlot> tree = trees.get(key);
+        if (tree != null && tree.remove(toSeconds(slot.start()), toSeconds(slot.end()), slot) && tree.isEmpty()) {
+            trees.remove(key);
+        }
+    }
+
+    private void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    synchronized (ScheduleConflictIndex.this) {
+                        undo.run();
+                    }
+                }
+            }
+        });
+    }
+
+    private static String describeConflict(ScheduledSlot slot, ScheduledSlot conflict) {
+        String resource = slot.trainerId() != null && slot.trainerId().equals(conflict.trainerId())
+                ? "Trainer " + slot.trainerId()
+                : "Location '" + conflict.location() + "'";
+        return resource + " is already booked from " + conflict.start() + " to " + conflict.end()
+                + " (" + conflict.source().name().toLowerCase(Locale.ROOT) + " " + conflict.id() + ").";
+    }
+
+    private static String normalizeLocation(String location) {
+        if (location == null || location.isBlank()) {
+            return null;
+        }
+        return location.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Heure locale de la salle, sans fuseau : seule la comparaison compte
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public enum Source {
+        EVENT, SESSION
+    }
+
+    public record ScheduledSlot(Source source, Long id, Long trainerId, String location, LocalDateTime start, LocalDateTime end) {
+
+        SlotKey key() {
+            return new SlotKey(source, id);
+        }
+    }
+
+    private record SlotKey(Source source, Long id) {
+    }
+}
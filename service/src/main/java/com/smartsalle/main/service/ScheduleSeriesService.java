@@ -0,0 +1,375 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.Event;
+import com.smartsalle.main.model.ScheduleSeries;
+import com.smartsalle.main.model.ScheduleSeriesView;
+import com.smartsalle.main.model.SeriesKind;
+import com.smartsalle.main.model.SeriesRequest;
+import com.smartsalle.main.model.SeriesUpdateRequest;
+import com.smartsalle.main.model.Session;
+import com.smartsalle.main.model.SessionStatus;
+import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.repository.EventRepository;
+import com.smartsalle.main.repository.GymRepository;
+import com.smartsalle.main.repository.ScheduleSeriesRepository;
+import com.smartsalle.main.repository.SessionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Séries récurrentes d'événements ou de séances (ex. "yoga le lundi et le jeudi à 18h jusqu'au 30 juin").
+ * La série est développée côté serveur et toutes ses occurrences sont insérées dans une seule transaction
+ * (batch JDBC, cf. hibernate.jdbc.batch_size). Les occurrences futures sont modifiées ou annulées
+ * par une seule requête UPDATE sur series_id.
+ */
+@Service
+public class ScheduleSeriesService {
+
+    private static final Logger LOGGER = LogManager.getLogger(ScheduleSeriesService.class);
+
+    // Borne du développement d'une série (un an d'occurrences quotidiennes)
+    private static final int MAX_OCCURRENCES = 366;
+
+    private static final String SCHEDULE_CONFLICT = "Trainer or location is already booked on one of the series time slots.";
+
+    // Seuls les champs renseignés sont modifiés (COALESCE) ; la capacité ne descend pas sous le nombre d'inscrits
+    private static final String UPDATE_FUTURE_EVENTS = "UPDATE events SET " +
+            "title = COALESCE(CAST(? AS VARCHAR), title), " +
+            "instructor_id = COALESCE(CAST(? AS BIGINT), instructor_id), " +
+            "location = COALESCE(CAST(? AS VARCHAR), location), " +
+            "date_time = COALESCE(CAST(date_time AS DATE) + CAST(? AS TIME), date_time), " +
+            "duration_in_minutes = COALESCE(CAST(? AS INTEGER), duration_in_minutes), " +
+            "capacity = GREATEST(COALESCE(CAST(? AS INTEGER), capacity), registered_count) " +
+            "WHERE series_id = ? AND date_time >= ? AND LOWER(status) = 'upcoming' " +
+            "RETURNING id";
+
+    // La fin de chaque séance est recalculée depuis le nouveau début et la nouvelle durée (ou la durée actuelle)
+    private static final String UPDATE_FUTURE_SESSIONS = "UPDATE sessions SET " +
+            "name = COALESCE(CAST(? AS VARCHAR), name), " +
+            "trainer_id = COALESCE(CAST(? AS BIGINT), trainer_id), " +
+            "start_time = COALESCE(CAST(start_time AS DATE) + CAST(? AS TIME), start_time), " +
+            "end_time = COALESCE(CAST(start_time AS DATE) + CAST(? AS TIME), start_time) " +
+            "+ make_interval(mins => COALESCE(CAST(? AS INTEGER), CAST(EXTRACT(EPOCH FROM end_time - start_time) / 60 AS INTEGER))), " +
+            "max_participants = CASE WHEN CAST(? AS INTEGER) IS NULL THEN max_participants ELSE GREATEST(CAST(? AS INTEGER), booked_count) END " +
+            "WHERE series_id = ? AND start_time >= ? AND status = 'SCHEDULED' " +
+            "RETURNING id";
+
+    private static final String CANCEL_FUTURE_EVENTS = "UPDATE events SET status = 'cancelled' " +
+            "WHERE series_id = ? AND date_time >= ? AND LOWER(status) = 'upcoming' RETURNING id";
+
+    // Les places sont remises à zéro avec l'annulation des réservations actives de ces séances
+    private static final String CANCEL_FUTURE_SESSIONS = "UPDATE sessions SET status = 'CANCELLED', booked_count = 0 " +
+            "WHERE series_id = ? AND start_time >= ? AND status = 'SCHEDULED' RETURNING id";
+
+    private static final String CANCEL_SESSION_BOOKINGS = "UPDATE bookings SET status = 'CANCELLED', hold_expires_at = NULL " +
+            "WHERE session_id = ANY (?) AND status IN ('HELD', 'CONFIRMED')";
+
+    private final ScheduleSeriesRepository scheduleSeriesRepository;
+    private final EventRepository eventRepository;
+    private final SessionRepository sessionRepository;
+    private final GymRepository gymRepository;
+    private final GymService gymService;
+    private final UserRoleLookup userRoleLookup;
+    private final EventService eventService;
+    private final EventAdmissionQueue eventAdmissionQueue;
+    private final ScheduleConflictIndex scheduleConflictIndex;
+    private final TimetableService timetableService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScheduleSeriesService(ScheduleSeriesRepository scheduleSeriesRepository, EventRepository eventRepository,
+                                 SessionRepository sessionRepository, GymRepository gymRepository, GymService gymService,
+                                 UserRoleLookup userRoleLookup, EventService eventService, EventAdmissionQueue eventAdmissionQueue,
+                                 ScheduleConflictIndex scheduleConflictIndex, TimetableService timetableService,
+                                 JdbcTemplate jdbcTemplate) {
+        this.scheduleSeriesRepository = scheduleSeriesRepository;
+        this.eventRepository = eventRepository;
+        this.sessionRepository = sessionRepository;
+        this.gymRepository = gymRepository;
+        this.gymService = gymService;
+        this.userRoleLookup = userRoleLookup;
+        this.eventService = eventService;
+        this.eventAdmissionQueue = eventAdmissionQueue;
+        this.scheduleConflictIndex = scheduleConflictIndex;
+        this.timetableService = timetableService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public ScheduleSeriesView createSeries(SeriesRequest request) {
+        validate(request);
+        User trainer = findTrainer(request.getTrainerId());
+        List<LocalDateTime> occurrences = expand(request, LocalDateTime.now());
+        if (occurrences.isEmpty()) {
+            throw new IllegalArgumentException("Series has no occurrence in the future.");
+        }
+        if (occurrences.size() > MAX_OCCURRENCES) {
+            throw new IllegalArgumentException("Series cannot have more than " + MAX_OCCURRENCES + " occurrences.");
+        }
+
+        ScheduleSeries series = new ScheduleSeries();
+        series.setKind(request.getKind());
+        series.setTitle(request.getTitle());
+        series.setType(request.getType());
+        if (request.getGymId() != null) {
+            gymService.readGymView(request.getGymId()); // 404 si la salle n'existe pas (lecture en cache)
+            series.setGym(gymRepository.getReferenceById(request.getGymId()));
+        }
+        series.setTrainer(trainer);
+        series.setLocation(request.getLocation());
+        series.setCapacity(request.getCapacity());
+        series.setDaysOfWeek(request.getDaysOfWeek().stream().distinct().sorted().map(DayOfWeek::name).collect(Collectors.joining(",")));
+        series.setStartTime(request.getStartTime());
+        series.setDurationInMinutes(request.getDurationInMinutes());
+        series.setStartDate(request.getStartDate());
+        series.setUntilDate(request.getUntilDate());
+        series.setExceptionDates(request.getExceptions() == null ? null
+                : request.getExceptions().stream().distinct().sorted().map(LocalDate::toString).collect(Collectors.joining(",")));
+        series.setCreatedAt(LocalDateTime.now());
+        scheduleSeriesRepository.save(series);
+
+        // saveAll : ids pris dans les blocs de la séquence, INSERT envoyés par lots au flush
+        if (series.getKind() == SeriesKind.EVENT) {
+            List<Event> events = eventRepository.saveAll(occurrences.stream().map(start -> newEvent(series, start)).toList());
+            // Un conflit d'une seule occurrence annule toute la série
+            events.forEach(scheduleConflictIndex::scheduleEvent);
+        } else {
+            List<Session> sessions = sessionRepository.saveAll(occurrences.stream().map(start -> newSession(series, start)).toList());
+            sessions.forEach(scheduleConflictIndex::scheduleSession);
+        }
+        flushSchedule();
+        // Une invalidation par semaine touchée dans le planning de la salle
+        if (request.getGymId() != null) {
+            occurrences.stream().map(LocalDateTime::toLocalDate).map(date -> date.with(DayOfWeek.MONDAY)).distinct()
+                    .forEach(monday -> timetableService.invalidate(request.getGymId(), monday.atStartOfDay()));
+        }
+        LOGGER.info("Created {} series {} with {} occurrences", series.getKind(), series.getId(), occurrences.size());
+        return ScheduleSeriesView.from(series, occurrences.size());
+    }
+
+    @Transactional(readOnly = true)
+    public ScheduleSeriesView getSeries(Long id) {
+        ScheduleSeries series = findSeries(id);
+        return ScheduleSeriesView.from(series, countOccurrences(series));
+    }
+
+    /**
+     * Applique les champs renseignés à toutes les occurrences non annulées à partir de from (maintenant par défaut),
+     * en une requête. Les créneaux modifiés sont revérifiés dans l'index des conflits : un conflit annule la modification.
+     */
+    @Transactional
+    public Map<String, Object> updateFutureOccurrences(Long id, LocalDateTime from, SeriesUpdateRequest update) {
+        ScheduleSeries series = findSeries(id);
+        if (update.getDurationInMinutes() != null && update.getDurationInMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        if (update.getCapacity() != null && update.getCapacity() < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        if (series.getKind() == SeriesKind.SESSION && update.getLocation() != null) {
+            throw new IllegalArgumentException("Sessions have no location.");
+        }
+        User trainer = findTrainer(update.getTrainerId());
+        LocalDateTime effectiveFrom = futureFrom(from);
+
+        List<Long> ids;
+        if (series.getKind() == SeriesKind.EVENT) {
+            ids = updateOccurrences(UPDATE_FUTURE_EVENTS,
+                    update.getTitle(), update.getTrainerId(), update.getLocation(), update.getStartTime(),
+                    update.getDurationInMinutes(), update.getCapacity(), id, effectiveFrom);
+            // Relecture des occurrences modifiées (lot unique) pour l'index des créneaux et la liste d'attente
+            for (Event event : eventRepository.findAllById(ids)) {
+                scheduleConflictIndex.scheduleEvent(event);
+                if (update.getCapacity() != null) {
+                    eventService.onCapacityChanged(event.getId());
+                }
+            }
+            ids.forEach(timetableService::invalidateEvent);
+        } else {
+            ids = updateOccurrences(UPDATE_FUTURE_SESSIONS,
+                    update.getTitle(), update.getTrainerId(), update.getStartTime(), update.getStartTime(),
+                    update.getDurationInMinutes(), update.getCapacity(), update.getCapacity(), id, effectiveFrom);
+            sessionRepository.findAllById(ids).forEach(scheduleConflictIndex::scheduleSession);
+            ids.forEach(timetableService::invalidateSession);
+        }
+
+        // La règle de la série suit ses occurrences futures
+        if (update.getTitle() != null) series.setTitle(update.getTitle());
+        if (trainer != null) series.setTrainer(trainer);
+        if (update.getLocation() != null) series.setLocation(update.getLocation());
+        if (update.getStartTime() != null) series.setStartTime(update.getStartTime());
+        if (update.getDurationInMinutes() != null) series.setDurationInMinutes(update.getDurationInMinutes());
+        if (update.getCapacity() != null) series.setCapacity(update.getCapacity());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("seriesId", id);
+        result.put("from", effectiveFrom);
+        result.put("updated", ids.size());
+        return result;
+    }
+
+    // Chevauchement refusé par les contraintes d'exclusion (V17), par exemple avec un créneau créé sur une autre instance
+    private List<Long> updateOccurrences(String sql, Object... args) {
+        try {
+            return jdbcTemplate.queryForList(sql, Long.class, args);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException(SCHEDULE_CONFLICT);
+        }
+    }
+
+    private void flushSchedule() {
+        try {
+            eventRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException(SCHEDULE_CONFLICT);
+        }
+    }
+
+    // Annule les occurrences à partir de from (maintenant par défaut) en une requête ; les occurrences passées restent
+    @Transactional
+    public Map<String, Object> cancelFutureOccurrences(Long id, LocalDateTime from) {
+        ScheduleSeries series = findSeries(id);
+        LocalDateTime effectiveFrom = futureFrom(from);
+
+        List<Long> ids;
+        if (series.getKind() == SeriesKind.EVENT) {
+            ids = jdbcTemplate.queryForList(CANCEL_FUTURE_EVENTS, Long.class, id, effectiveFrom);
+            for (Long eventId : ids) {
+                scheduleConflictIndex.release(ScheduleConflictIndex.Source.EVENT, eventId);
+                eventAdmissionQueue.invalidate(eventId);
+                timetableService.invalidateEvent(eventId);
+            }
+        } else {
+            ids = jdbcTemplate.queryForList(CANCEL_FUTURE_SESSIONS, Long.class, id, effectiveFrom);
+            if (!ids.isEmpty()) {
+                jdbcTemplate.update(CANCEL_SESSION_BOOKINGS, (Object) ids.toArray(Long[]::new));
+            }
+            for (Long sessionId : ids) {
+                scheduleConflictIndex.release(ScheduleConflictIndex.Source.SESSION, sessionId);
+                timetableService.invalidateSession(sessionId);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("seriesId", id);
+        result.put("from", effectiveFrom);
+        result.put("cancelled", ids.size());
+        return result;
+    }
+
+    // Dates de la série à venir : jours demandés entre startDate et untilDate, hors exceptions
+    private static List<LocalDateTime> expand(SeriesRequest request, LocalDateTime now) {
+        Set<DayOfWeek> days = EnumSet.copyOf(request.getDaysOfWeek());
+        Set<LocalDate> exceptions = request.getExceptions() == null ? Set.of() : new HashSet<>(request.getExceptions());
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        LocalDate date = request.getStartDate().isBefore(now.toLocalDate()) ? now.toLocalDate() : request.getStartDate();
+        for (; !date.isAfter(request.getUntilDate()) && occurrences.size() <= MAX_OCCURRENCES; date = date.plusDays(1)) {
+            LocalDateTime start = date.atTime(request.getStartTime());
+            if (days.contains(date.getDayOfWeek()) && !exceptions.contains(date) && start.isAfter(now)) {
+                occurrences.add(start);
+            }
+        }
+        return occurrences;
+    }
+
+    private static void validate(SeriesRequest request) {
+        if (request.getKind() == null) {
+            throw new IllegalArgumentException("Series kind (EVENT or SESSION) is required.");
+        }
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Series title is required.");
+        }
+        if (request.getDaysOfWeek() == null || request.getDaysOfWeek().isEmpty()) {
+            throw new IllegalArgumentException("At least one day of week is required.");
+        }
+        if (request.getStartTime() == null || request.getStartDate() == null || request.getUntilDate() == null) {
+            throw new IllegalArgumentException("startTime, startDate and untilDate are required.");
+        }
+        if (request.getUntilDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("untilDate must not be before startDate.");
+        }
+        if (request.getDurationInMinutes() == null || request.getDurationInMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        if (request.getCapacity() != null && request.getCapacity() < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        if (request.getKind() == SeriesKind.EVENT && (request.getType() == null || request.getCapacity() == null)) {
+            throw new IllegalArgumentException("Event series require a type and a capacity.");
+        }
+        if (request.getKind() == SeriesKind.SESSION && request.getGymId() == null) {
+            throw new IllegalArgumentException("Session series require a gymId.");
+        }
+        if (request.getKind() == SeriesKind.SESSION && request.getLocation() != null) {
+            throw new IllegalArgumentException("Sessions have no location.");
+        }
+    }
+
+    private static Event newEvent(ScheduleSeries series, LocalDateTime start) {
+        Event event = new Event();
+        event.setTitle(series.getTitle());
+        event.setType(series.getType());
+        event.setDateTime(start);
+        event.setDurationInMinutes(series.getDurationInMinutes());
+        event.setCapacity(series.getCapacity());
+        event.setLocation(series.getLocation());
+        event.setInstructor(series.getTrainer());
+        event.setGym(series.getGym());
+        event.setStatus("upcoming");
+        event.setSeries(series);
+        return event;
+    }
+
+    private static Session newSession(ScheduleSeries series, LocalDateTime start) {
+        Session session = new Session();
+        session.setName(series.getTitle());
+        session.setGym(series.getGym());
+        session.setTrainer(series.getTrainer());
+        session.setStartTime(start);
+        session.setEndTime(start.plusMinutes(series.getDurationInMinutes()));
+        session.setMaxParticipants(series.getCapacity());
+        session.setSeries(series);
+        return session;
+    }
+
+    private User findTrainer(Long trainerId) {
+        if (trainerId == null) {
+            return null;
+        }
+        return userRoleLookup.findByIdAndRole(trainerId, UserRole.TRAINER)
+                .orElseThrow(() -> new EntityNotFoundException("Trainer not found with id: " + trainerId));
+    }
+
+    private ScheduleSeries findSeries(Long id) {
+        return scheduleSeriesRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Series not found with id: " + id));
+    }
+
+    private long countOccurrences(ScheduleSeries series) {
+        return series.getKind() == SeriesKind.EVENT
+                ? eventRepository.countActiveBySeriesId(series.getId())
+                : sessionRepository.countBySeriesIdAndStatus(series.getId(), SessionStatus.SCHEDULED);
+    }
+
+    private static LocalDateTime futureFrom(LocalDateTime from) {
+        LocalDateTime now = LocalDateTime.now();
+        return from == null || from.isBefore(now) ? now : from;
+    }
+}
@@ -0,0 +1,47 @@
+package com.smartsalle.main.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Baux en base (table scheduler_leases) pour les tâches planifiées exécutées sur plusieurs instances.
+ * Le bail est pris s'il est libre, expiré ou déjà détenu par cette instance ; l'horloge utilisée est celle de la base,
+ * pour ne pas dépendre de la dérive entre les nœuds.
+ */
+@Component
+public class SchedulerLease {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public SchedulerLease(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = hostName() + "-" + UUID.randomUUID();
+    }
+
+    // Prend ou prolonge le bail ; false si une autre instance le détient encore
+    public boolean tryAcquire(String name, Duration duration) {
+        return jdbcTemplate.update("INSERT INTO scheduler_leases (name, owner, locked_until) " +
+                        "VALUES (?, ?, clock_timestamp() + ? * INTERVAL '1 millisecond') " +
+                        "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, locked_until = EXCLUDED.locked_until " +
+                        "WHERE scheduler_leases.locked_until < clock_timestamp() OR scheduler_leases.owner = EXCLUDED.owner",
+                name, owner, duration.toMillis()) == 1;
+    }
+
+    public void release(String name) {
+        jdbcTemplate.update("UPDATE scheduler_leases SET locked_until = clock_timestamp() WHERE name = ? AND owner = ?", name, owner);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.smartsalle.main.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartsalle.main.model.SeriesKind;
+import com.smartsalle.main.model.TimetableEntry;
+import com.smartsalle.main.model.WeeklyTimetable;
+import com.smartsalle.main.repository.EventRepository;
+import com.smartsalle.main.repository.SessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Planning hebdomadaire d'une salle (événements et séances de la semaine ISO, coach et places restantes),
+ * calculé en deux requêtes puis gardé dans un cache borné.
+ * Une écriture n'invalide que la semaine concernée, après le commit : par (salle, date) pour une création,
+ * par id d'événement ou de séance pour une inscription ou une réservation (retrouvé via les semaines en cache).
+ * Le cache est local à l'instance : sur plusieurs instances, une semaine peut rester périmée jusqu'à timetable.cache.ttl.
+ */
+@Service
+public class TimetableService {
+
+    // "2026-W43" : année et numéro de semaine ISO, indépendants de la locale
+    private static final DateTimeFormatter ISO_WEEK = new DateTimeFormatterBuilder()
+            .appendValue(IsoFields.WEEK_BASED_YEAR, 4)
+            .appendLiteral("-W")
+            .appendValue(IsoFields.WEEK_OF_WEEK_BASED_YEAR, 2)
+            .toFormatter();
+
+    // Nombre moyen de créneaux par semaine retenu pour borner l'index inverse
+    private static final int ENTRIES_PER_WEEK = 200;
+
+    private final EventRepository eventRepository;
+    private final SessionRepository sessionRepository;
+    private final GymService gymService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Cache<WeekKey, WeeklyTimetable> timetables;
+    // Événement ou séance -> dernière semaine calculée qui le contient, pour invalider sans relire la base.
+    // Même durée de vie que les plannings ; une entrée périmée ne provoque qu'une invalidation inutile
+    private final Cache<EntryKey, WeekKey> weekByEntry;
+
+    public TimetableService(EventRepository eventRepository, SessionRepository sessionRepository, GymService gymService,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${timetable.cache.max-size:2000}") long maxSize,
+                            @Value("${timetable.cache.ttl:10m}") Duration ttl) {
+        this.eventRepository = eventRepository;
+        this.sessionRepository = sessionRepository;
+        this.gymService = gymService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.timetables = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.weekByEntry = Caffeine.newBuilder()
+                .maximumSize(maxSize * ENTRIES_PER_WEEK)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, timetables, "timetables");
+    }
+
+    // week : semaine ISO "2026-W43", semaine en cours si absente
+    public WeeklyTimetable getWeek(Long gymId, String week) {
+        gymService.readGymView(gymId); // 404 si la salle n'existe pas (lecture en cache)
+        WeekKey key = new WeekKey(gymId, week == null || week.isBlank() ? weekStart(LocalDate.now()) : parseWeek(week));
+        // Une invalidation pendant le calcul attend sa fin puis retire l'entrée : pas de planning périmé conservé
+        return timetables.get(key, this::build);
+    }
+
+    // Création, déplacement ou suppression d'un créneau : invalide la semaine de la date dans la salle
+    public void invalidate(Long gymId, LocalDateTime dateTime) {
+        if (gymId != null && dateTime != null) {
+            afterCommit(() -> timetables.invalidate(new WeekKey(gymId, weekStart(dateTime.toLocalDate()))));
+        }
+    }
+
+    // Places restantes ou détails modifiés : invalide la semaine en cache qui contient l'événement, s'il y en a une
+    public void invalidateEvent(Long eventId) {
+        invalidateEntry(new EntryKey(SeriesKind.EVENT, eventId));
+    }
+
+    public void invalidateSession(Long sessionId) {
+        invalidateEntry(new EntryKey(SeriesKind.SESSION, sessionId));
+    }
+
+    private void invalidateEntry(EntryKey entry) {
+        afterCommit(() -> {
+            WeekKey key = weekByEntry.getIfPresent(entry);
+            if (key != null) {
+                timetables.invalidate(key);
+            }
+        });
+    }
+
+    private WeeklyTimetable build(WeekKey key) {
+        LocalDateTime from = key.weekStart().atStartOfDay();
+        LocalDateTime to = from.plusWeeks(1);
+        List<TimetableEntry> entries = readOnlyTransaction.execute(status -> {
+            List<TimetableEntry> result = new ArrayList<>();
+            eventRepository.findTimetable(key.gymId(), from, to).forEach(event -> result.add(TimetableEntry.from(event)));
+            sessionRepository.findTimetable(key.gymId(), from, to).forEach(session -> result.add(TimetableEntry.from(session)));
+            result.sort(Comparator.comparing(TimetableEntry::start).thenComparing(TimetableEntry::kind).thenComparing(TimetableEntry::id));
+            return result;
+        });
+        for (TimetableEntry entry : entries) {
+            weekByEntry.put(new EntryKey(entry.kind(), entry.id()), key);
+        }
+        return new WeeklyTimetable(key.gymId(), key.weekStart().format(ISO_WEEK), key.weekStart(), List.copyOf(entries),
+                LocalDateTime.now(), etag(key, entries));
+    }
+
+    // Empreinte du contenu (sans l'heure de calcul) : deux calculs identiques donnent le même ETag, y compris d'une instance à l'autre
+    private static String etag(WeekKey key, List<TimetableEntry> entries) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(entries.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDate parseWeek(String week) {
+        try {
+            // "2026-W43" -> lundi de la semaine ISO
+            return LocalDate.parse(week + "-1", DateTimeFormatter.ISO_WEEK_DATE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid ISO week '" + week + "', expected e.g. 2026-W43.");
+        }
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record WeekKey(Long gymId, LocalDate weekStart) {
+    }
+
+    private record EntryKey(SeriesKind kind, Long id) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.config.CacheConfig;
+import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Vérification "cet id est-il un utilisateur de tel rôle ?" à partir du cache des rôles.
+ * Un succès renvoie une référence (proxy JPA, sans requête) : les services n'ont besoin que de l'association,
+ * les colonnes ne sont chargées que si elles sont lues. Les absences ne sont pas mises en cache ;
+ * les suppressions évincent l'entrée (MemberService, CoachService).
+ */
+@Component
+public class UserRoleLookup {
+
+    private final UserRepository userRepository;
+    private final Cache roles;
+
+    public UserRoleLookup(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.roles = cacheManager.getCache(CacheConfig.USER_ROLES);
+    }
+
+    public Optional<User> findByIdAndRole(Long id, UserRole role) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        UserRole cachedRole = roles.get(id, UserRole.class);
+        if (cachedRole == null) {
+            Optional<UserRole> storedRole = userRepository.findRoleById(id);
+            if (storedRole.isEmpty()) {
+                return Optional.empty();
+            }
+            cachedRole = storedRole.get();
+            roles.put(id, cachedRole);
+        }
+        return cachedRole == role ? Optional.of(userRepository.getReferenceById(id)) : Optional.empty();
+    }
+}
@@ -0,0 +1,2 @@
+-- Salle du passage (facultative) : occupation en temps réel par salle, poussée en WebSocket (OccupancyBroadcaster)
+ALTER TABLE attendance_records ADD COLUMN gym_id BIGINT REFERENCES gym ON DELETE SET NULL;
@@ -0,0 +1,22 @@
+-- Compteur de places réservées (HELD + CONFIRMED), incrémenté conditionnellement (booked_count < max_participants)
+ALTER TABLE sessions ADD COLUMN IF NOT EXISTS booked_count INTEGER NOT NULL DEFAULT 0;
+
+-- Réservation provisoire : la place est libérée si elle n'est pas confirmée avant hold_expires_at
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS hold_expires_at TIMESTAMP(6);
+
+UPDATE bookings SET status = 'CONFIRMED' WHERE status IS NULL;
+
+-- Un membre n'a qu'une réservation active par séance : les doublons éventuels sont annulés (les paiements peuvent y faire référence)
+UPDATE bookings a SET status = 'CANCELLED'
+    FROM bookings b
+    WHERE a.session_id = b.session_id AND a.user_id = b.user_id AND a.id > b.id
+      AND a.status = 'CONFIRMED' AND b.status = 'CONFIRMED';
+
+UPDATE sessions s SET booked_count = (SELECT COUNT(*) FROM bookings b WHERE b.session_id = s.id AND b.status = 'CONFIRMED');
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_bookings_session_user_active
+    ON bookings (session_id, user_id) WHERE status IN ('HELD', 'CONFIRMED');
+
+-- Rechargement des réservations provisoires au démarrage et balayage des expirations manquées
+CREATE INDEX IF NOT EXISTS idx_bookings_hold_expires_at
+    ON bookings (hold_expires_at) WHERE status = 'HELD';
@@ -0,0 +1,30 @@
+-- Séries récurrentes (cours hebdomadaires) : chaque occurrence est un événement ou une séance rattaché à sa série
+CREATE TABLE IF NOT EXISTS schedule_series (
+    id BIGSERIAL NOT NULL,
+    kind VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    type VARCHAR(255),
+    gym_id BIGINT REFERENCES gym,
+    trainer_id BIGINT REFERENCES users,
+    location VARCHAR(255),
+    capacity INTEGER,
+    days_of_week VARCHAR(255) NOT NULL,
+    start_time TIME(6) NOT NULL,
+    duration_in_minutes INTEGER NOT NULL,
+    start_date DATE NOT NULL,
+    until_date DATE NOT NULL,
+    exception_dates TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER SEQUENCE schedule_series_id_seq INCREMENT BY 50;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS series_id BIGINT REFERENCES schedule_series;
+ALTER TABLE sessions ADD COLUMN IF NOT EXISTS series_id BIGINT REFERENCES schedule_series;
+
+-- Une séance annulée reste en base (réservations et paiements y font référence)
+ALTER TABLE sessions ADD COLUMN IF NOT EXISTS status VARCHAR(255) NOT NULL DEFAULT 'SCHEDULED';
+
+-- Modification / annulation des occurrences futures d'une série en une seule requête
+CREATE INDEX IF NOT EXISTS idx_events_series_date_time ON events (series_id, date_time) WHERE series_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_sessions_series_start_time ON sessions (series_id, start_time) WHERE series_id IS NOT NULL;
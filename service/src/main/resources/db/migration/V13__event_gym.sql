@@ -0,0 +1,8 @@
+-- Salle d'un événement (planning hebdomadaire par salle) ; repris de la série pour les occurrences déjà générées
+ALTER TABLE events ADD COLUMN IF NOT EXISTS gym_id BIGINT REFERENCES gym ON DELETE SET NULL;
+
+UPDATE events e SET gym_id = s.gym_id FROM schedule_series s WHERE e.series_id = s.id AND e.gym_id IS NULL;
+
+-- Planning d'une salle sur une semaine
+CREATE INDEX IF NOT EXISTS idx_events_gym_date_time ON events (gym_id, date_time) WHERE gym_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_sessions_gym_start_time ON sessions (gym_id, start_time);
@@ -0,0 +1,24 @@
+-- Recherche des membres (accueil) : trigrammes sur le nom, l'email et le téléphone, sans accents ni casse
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() n'est pas IMMUTABLE (dictionnaire modifiable) : enveloppe figée pour la colonne générée et l'index.
+-- search_path fixé : l'extension peut être installée dans public ou dans extensions selon l'hébergement
+CREATE OR REPLACE FUNCTION member_search_key(value TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+    SET search_path = public, extensions
+AS $$ SELECT lower(unaccent('unaccent', coalesce(value, ''))) $$;
+
+-- Texte indexé : prénom, nom, email, téléphone tel quel et réduit à ses chiffres ("06 12 34" trouve "0612345678")
+ALTER TABLE users ADD COLUMN IF NOT EXISTS search_text TEXT GENERATED ALWAYS AS (
+    member_search_key(coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' ' || email || ' '
+        || phone || ' ' || regexp_replace(phone, '\D', '', 'g'))
+) STORED;
+
+-- Partiel : seuls les membres (CLIENT) sont recherchés
+CREATE INDEX IF NOT EXISTS idx_users_search_text_trgm
+    ON users USING gin (search_text gin_trgm_ops) WHERE role = 'CLIENT';
+
+-- Statut d'adhésion d'un membre (EXISTS par membre candidat)
+CREATE INDEX IF NOT EXISTS idx_memberships_user_end_date
+    ON memberships (user_id, end_date);
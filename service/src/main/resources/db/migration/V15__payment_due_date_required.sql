@@ -0,0 +1,6 @@
+-- Mois du grand livre = mois d'échéance : due_date devient obligatoire pour que le mois d'un paiement ne change plus
+-- (auparavant, à défaut d'échéance, le mois suivait payment_date, renseignée au passage en PAID).
+-- Les anciennes lignes reçoivent le mois sous lequel le grand livre les compte déjà.
+UPDATE payments SET due_date = COALESCE(CAST(payment_date AS date), DATE '1970-01-01') WHERE due_date IS NULL;
+
+ALTER TABLE payments ALTER COLUMN due_date SET NOT NULL;
@@ -0,0 +1,13 @@
+-- Un seul passage ouvert par membre, garanti par la base : l'index d'occupation en mémoire est propre à chaque instance.
+-- Doublons existants : seul le passage le plus récent reste ouvert, les autres sont clos à leur heure d'entrée (durée nulle)
+UPDATE attendance_records a
+SET check_out_time = a.check_in_time, duration_in_minutes = 0
+WHERE a.check_out_time IS NULL
+  AND EXISTS (SELECT 1 FROM attendance_records b
+              WHERE b.user_id = a.user_id AND b.check_out_time IS NULL
+                AND (b.check_in_time, b.id) > (a.check_in_time, a.id));
+
+-- Remplace l'index non unique de V2 (user_id, check_in_time DESC) : au plus une ligne par membre, l'ordre n'est plus utile
+DROP INDEX IF EXISTS idx_attendance_records_open_by_user;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_attendance_records_user_open
+    ON attendance_records (user_id) WHERE check_out_time IS NULL;
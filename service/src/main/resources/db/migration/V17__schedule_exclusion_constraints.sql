@@ -0,0 +1,21 @@
+-- Chevauchements de créneaux refusés par la base : l'index des conflits en mémoire (ScheduleConflictIndex) est propre
+-- à chaque instance, ces contraintes tiennent pour toutes. Une par table : le chevauchement entre un événement et une séance
+-- du même coach reste vérifié par l'index en mémoire seul.
+-- Des créneaux déjà en conflit font échouer la migration (couple fautif indiqué dans l'erreur) : à annuler ou déplacer avant.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Événements : instructeur et lieu (normalisé comme en Java : espaces retirés, minuscules), hors annulés et terminés
+ALTER TABLE events ADD CONSTRAINT ex_events_instructor_time
+    EXCLUDE USING gist (instructor_id WITH =,
+        tsrange(date_time, date_time + duration_in_minutes * INTERVAL '1 minute') WITH &&)
+    WHERE (instructor_id IS NOT NULL AND lower(status) NOT IN ('cancelled', 'completed'));
+
+ALTER TABLE events ADD CONSTRAINT ex_events_location_time
+    EXCLUDE USING gist (lower(btrim(location)) WITH =,
+        tsrange(date_time, date_time + duration_in_minutes * INTERVAL '1 minute') WITH &&)
+    WHERE (btrim(location) <> '' AND lower(status) NOT IN ('cancelled', 'completed'));
+
+-- Séances : coach, hors séances annulées ou sans horaire
+ALTER TABLE sessions ADD CONSTRAINT ex_sessions_trainer_time
+    EXCLUDE USING gist (trainer_id WITH =, tsrange(start_time, end_time) WITH &&)
+    WHERE (trainer_id IS NOT NULL AND start_time IS NOT NULL AND end_time IS NOT NULL AND status <> 'CANCELLED');
@@ -0,0 +1,15 @@
+-- Grand livre reconstruit depuis payments par la migration, avant que l'application ne reçoive des requêtes.
+-- Remplace la reconstruction au démarrage (table vide) : un paiement créé avant la fin du démarrage rendait la table
+-- non vide et empêchait la reconstruction, et deux instances démarrées ensemble se heurtaient à la clé unique.
+-- Le mois et la salle suivent les mêmes règles que PaymentLedgerService ; la reconstruction complète est aussi
+-- juste sur une base dont le grand livre était déjà tenu à jour.
+DELETE FROM payment_ledger;
+
+INSERT INTO payment_ledger (month, gym_id, status, currency, payment_count, amount_minor)
+SELECT CAST(date_trunc('month', p.due_date) AS date),
+       COALESCE(m.gym_id, s.gym_id, 0), p.status, p.currency, COUNT(*), SUM(p.amount_minor)
+FROM payments p
+LEFT JOIN memberships m ON m.id = p.membership_id
+LEFT JOIN bookings b ON b.id = p.booking_id
+LEFT JOIN sessions s ON s.id = b.session_id
+GROUP BY 1, 2, 3, 4;
@@ -0,0 +1,13 @@
+-- Agrégats journaliers reconstruits depuis attendance_records par la migration, avant que l'application ne reçoive
+-- des requêtes. Remplace la reconstruction au démarrage (table vide) : un check-out traité avant la fin du démarrage
+-- empêchait la reconstruction, et deux instances démarrées ensemble se heurtaient à la clé unique (day, type).
+-- Toutes les visites terminées sont comptées, comme le fait chaque check-out (AttendanceRollupService) ;
+-- les passages fermés par V16 sans mise à jour des agrégats sont ainsi rattrapés.
+DELETE FROM attendance_daily_rollups;
+
+INSERT INTO attendance_daily_rollups (day, type, visits, distinct_visitors, duration_sum, duration_count)
+SELECT CAST(check_in_time AS date), COALESCE(type, ''), COUNT(*), COUNT(DISTINCT user_id),
+       COALESCE(SUM(duration_in_minutes), 0), COUNT(duration_in_minutes)
+FROM attendance_records
+WHERE check_out_time IS NOT NULL
+GROUP BY CAST(check_in_time AS date), COALESCE(type, '');
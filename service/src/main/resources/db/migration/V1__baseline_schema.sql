@@ -0,0 +1,135 @@
+-- Schéma de référence, identique à celui produit jusqu'ici par spring.jpa.hibernate.ddl-auto=update.
+-- Sur une base existante, Flyway le considère comme déjà appliqué (baseline-on-migrate, baseline-version=1).
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGSERIAL NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    organization VARCHAR(255) NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    phone VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_organization UNIQUE (organization),
+    CONSTRAINT uk_users_phone UNIQUE (phone)
+);
+
+CREATE TABLE IF NOT EXISTS gym (
+    id BIGSERIAL NOT NULL,
+    address VARCHAR(255),
+    city VARCHAR(255),
+    created_at TIMESTAMP(6),
+    email VARCHAR(255),
+    name VARCHAR(255),
+    phone VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS memberships (
+    id BIGSERIAL NOT NULL,
+    end_date DATE,
+    start_date DATE,
+    gym_id BIGINT NOT NULL REFERENCES gym,
+    user_id BIGINT NOT NULL REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS sessions (
+    id BIGSERIAL NOT NULL,
+    end_time TIMESTAMP(6),
+    max_participants INTEGER,
+    name VARCHAR(255),
+    start_time TIMESTAMP(6),
+    gym_id BIGINT NOT NULL REFERENCES gym,
+    trainer_id BIGINT REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id BIGSERIAL NOT NULL,
+    status VARCHAR(255),
+    session_id BIGINT NOT NULL REFERENCES sessions,
+    user_id BIGINT NOT NULL REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id BIGSERIAL NOT NULL,
+    amount FLOAT(53) NOT NULL,
+    due_date DATE,
+    payment_date TIMESTAMP(6),
+    payment_method VARCHAR(255),
+    status VARCHAR(255) NOT NULL,
+    booking_id BIGINT REFERENCES bookings,
+    membership_id BIGINT REFERENCES memberships,
+    user_id BIGINT NOT NULL REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS workout_plan (
+    id BIGSERIAL NOT NULL,
+    end_date DATE,
+    goal VARCHAR(255),
+    start_date DATE,
+    status VARCHAR(255),
+    trainer_id BIGINT REFERENCES users,
+    user_id BIGINT REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS exercise (
+    id BIGSERIAL NOT NULL,
+    description VARCHAR(255),
+    duration_minutes INTEGER NOT NULL,
+    name VARCHAR(255),
+    reps INTEGER NOT NULL,
+    sets INTEGER NOT NULL,
+    workout_plan_id BIGINT REFERENCES workout_plan,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS events (
+    id BIGSERIAL NOT NULL,
+    capacity INTEGER NOT NULL,
+    date_time TIMESTAMP(6) NOT NULL,
+    description OID,
+    duration_in_minutes INTEGER NOT NULL,
+    location VARCHAR(255),
+    status VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    instructor_id BIGINT REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS event_registrations (
+    id BIGSERIAL NOT NULL,
+    registration_time TIMESTAMP(6) NOT NULL,
+    event_id BIGINT NOT NULL REFERENCES events,
+    user_id BIGINT NOT NULL REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS attendance_records (
+    id BIGSERIAL NOT NULL,
+    check_in_time TIMESTAMP(6) NOT NULL,
+    check_out_time TIMESTAMP(6),
+    duration_in_minutes INTEGER,
+    type VARCHAR(255),
+    user_id BIGINT NOT NULL REFERENCES users,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS attendance_daily_rollups (
+    id BIGSERIAL NOT NULL,
+    day DATE NOT NULL,
+    distinct_visitors BIGINT NOT NULL,
+    duration_count BIGINT NOT NULL,
+    duration_sum BIGINT NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    visits BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_attendance_daily_rollups_day_type UNIQUE (day, type)
+);
@@ -0,0 +1,5 @@
+-- Classement des membres par proximité avec la saisie (MemberService) : ORDER BY terme <<-> search_text LIMIT n
+-- parcourt cet index dans l'ordre des distances (plus proches voisins) et s'arrête après n membres.
+-- L'index GIN de V14 reste utilisé pour le total (COUNT) et les recherches sans classement.
+CREATE INDEX IF NOT EXISTS idx_users_search_text_gist
+    ON users USING gist (search_text gist_trgm_ops) WHERE role = 'CLIENT';
@@ -0,0 +1,5 @@
+-- locked_until est comparé à clock_timestamp() (timestamptz) : en TIMESTAMP, chaque comparaison dépendait du fuseau
+-- de la session, et deux instances configurées avec des fuseaux différents lisaient des échéances décalées.
+-- Les valeurs existantes ont été écrites dans le fuseau de la session : converties depuis ce même fuseau.
+ALTER TABLE scheduler_leases
+    ALTER COLUMN locked_until TYPE TIMESTAMPTZ USING locked_until AT TIME ZONE current_setting('TimeZone');
@@ -0,0 +1,38 @@
+-- Index alignés sur les requêtes des repositories.
+-- Les noms sont vérifiés au démarrage par SchemaIndexVerifier : toute modification doit y être reportée.
+
+-- Présences : check-in actif d'un membre (findLastActiveCheckInByUser, chargement de l'index d'occupation)
+CREATE INDEX IF NOT EXISTS idx_attendance_records_open_by_user
+    ON attendance_records (user_id, check_in_time DESC) WHERE check_out_time IS NULL;
+-- Présences : historique d'un membre filtré par période
+CREATE INDEX IF NOT EXISTS idx_attendance_records_user_check_in_time
+    ON attendance_records (user_id, check_in_time);
+-- Présences : filtres par période, statistiques et pagination par curseur
+CREATE INDEX IF NOT EXISTS idx_attendance_records_check_in_time_id
+    ON attendance_records (check_in_time, id);
+
+-- Événements : filtres statut / type / période et pagination par curseur
+CREATE INDEX IF NOT EXISTS idx_events_status_type_date_time
+    ON events (status, type, date_time);
+CREATE INDEX IF NOT EXISTS idx_events_date_time_id
+    ON events (date_time, id);
+
+-- Inscriptions : recherche par (événement, membre) et comptage par événement
+CREATE INDEX IF NOT EXISTS idx_event_registrations_event_user
+    ON event_registrations (event_id, user_id);
+
+-- Paiements : filtres statut / échéance, historique d'un membre et pagination par curseur
+CREATE INDEX IF NOT EXISTS idx_payments_status_due_date
+    ON payments (status, due_date);
+CREATE INDEX IF NOT EXISTS idx_payments_user_due_date
+    ON payments (user_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_payments_due_date_id
+    ON payments (due_date, id);
+
+-- Adhésions : membres d'une salle
+CREATE INDEX IF NOT EXISTS idx_memberships_gym_user
+    ON memberships (gym_id, user_id);
+
+-- Utilisateurs : listes par rôle (membres, coachs)
+CREATE INDEX IF NOT EXISTS idx_users_role_id
+    ON users (role, id);
@@ -0,0 +1,13 @@
+-- Compteur de places réservées, incrémenté conditionnellement (registered_count < capacity) à chaque inscription
+ALTER TABLE events ADD COLUMN IF NOT EXISTS registered_count INTEGER NOT NULL DEFAULT 0;
+
+-- Un membre ne peut être inscrit qu'une fois à un événement : suppression des doublons éventuels avant la contrainte
+DELETE FROM event_registrations a
+    USING event_registrations b
+    WHERE a.event_id = b.event_id AND a.user_id = b.user_id AND a.id > b.id;
+
+UPDATE events e SET registered_count = (SELECT COUNT(*) FROM event_registrations r WHERE r.event_id = e.id);
+
+-- La contrainte unique fournit l'index (event_id, user_id) : l'index simple devient redondant
+DROP INDEX IF EXISTS idx_event_registrations_event_user;
+ALTER TABLE event_registrations ADD CONSTRAINT uk_event_registrations_event_user UNIQUE (event_id, user_id);
@@ -0,0 +1,6 @@
+-- Liste d'attente : les inscriptions au-delà de la capacité sont conservées avec le statut WAITLISTED
+ALTER TABLE event_registrations ADD COLUMN IF NOT EXISTS status VARCHAR(255) NOT NULL DEFAULT 'REGISTERED';
+
+-- Ordre FIFO de promotion depuis la liste d'attente
+CREATE INDEX IF NOT EXISTS idx_event_registrations_waitlist
+    ON event_registrations (event_id, registration_time, id) WHERE status = 'WAITLISTED';
@@ -0,0 +1,15 @@
+-- Identifiants générés par séquence avec l'optimiseur "pooled" d'Hibernate (allocationSize = 50) :
+-- chaque nextval réserve un bloc de 50 ids côté application, ce qui permet le batch JDBC des INSERT.
+-- Les valeurs par défaut des colonnes (nextval) restent valables pour les insertions SQL directes.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE gym_id_seq INCREMENT BY 50;
+ALTER SEQUENCE memberships_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sessions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE bookings_id_seq INCREMENT BY 50;
+ALTER SEQUENCE payments_id_seq INCREMENT BY 50;
+ALTER SEQUENCE workout_plan_id_seq INCREMENT BY 50;
+ALTER SEQUENCE exercise_id_seq INCREMENT BY 50;
+ALTER SEQUENCE events_id_seq INCREMENT BY 50;
+ALTER SEQUENCE event_registrations_id_seq INCREMENT BY 50;
+ALTER SEQUENCE attendance_records_id_seq INCREMENT BY 50;
+ALTER SEQUENCE attendance_daily_rollups_id_seq INCREMENT BY 50;
@@ -0,0 +1,14 @@
+-- Grand livre des paiements : nombre et montant cumulés par mois d'échéance, salle et statut.
+-- Rempli au démarrage s'il est vide (PaymentLedgerService), puis maintenu à chaque écriture de paiement.
+CREATE TABLE IF NOT EXISTS payment_ledger (
+    id BIGSERIAL NOT NULL,
+    month DATE NOT NULL,
+    gym_id BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    payment_count BIGINT NOT NULL,
+    amount_total DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payment_ledger_month_gym_status UNIQUE (month, gym_id, status)
+);
+
+ALTER SEQUENCE payment_ledger_id_seq INCREMENT BY 50;
@@ -0,0 +1,16 @@
+-- Montants exacts : unités mineures (BIGINT) + devise ISO 4217 à la place du DOUBLE PRECISION.
+-- Les montants existants sont en USD (devise par défaut, 2 décimales).
+ALTER TABLE payments ADD COLUMN amount_minor BIGINT;
+ALTER TABLE payments ADD COLUMN currency VARCHAR(3);
+UPDATE payments SET amount_minor = ROUND(CAST(amount AS NUMERIC) * 100), currency = 'USD';
+ALTER TABLE payments ALTER COLUMN amount_minor SET NOT NULL;
+ALTER TABLE payments ALTER COLUMN currency SET NOT NULL;
+ALTER TABLE payments DROP COLUMN amount;
+
+-- Le grand livre est vidé puis reconstruit au démarrage depuis payments (PaymentLedgerService)
+DELETE FROM payment_ledger;
+ALTER TABLE payment_ledger DROP CONSTRAINT uk_payment_ledger_month_gym_status;
+ALTER TABLE payment_ledger DROP COLUMN amount_total;
+ALTER TABLE payment_ledger ADD COLUMN currency VARCHAR(3) NOT NULL;
+ALTER TABLE payment_ledger ADD COLUMN amount_minor BIGINT NOT NULL;
+ALTER TABLE payment_ledger ADD CONSTRAINT uk_payment_ledger_month_gym_status_currency UNIQUE (month, gym_id, status, currency);
@@ -0,0 +1,8 @@
+-- Baux des tâches planifiées : sur plusieurs instances, seule celle qui détient le bail (non expiré) exécute la tâche.
+-- Un bail abandonné (instance arrêtée) expire de lui-même après locked_until.
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name VARCHAR(100) NOT NULL,
+    owner VARCHAR(255) NOT NULL,
+    locked_until TIMESTAMP NOT NULL,
+    PRIMARY KEY (name)
+);
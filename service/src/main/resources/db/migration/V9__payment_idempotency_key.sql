@@ -0,0 +1,3 @@
+-- Clé d'idempotence fournie par le client (en-tête Idempotency-Key) : une seule création de paiement par membre et par clé
+ALTER TABLE payments ADD COLUMN idempotency_key VARCHAR(255);
+ALTER TABLE payments ADD CONSTRAINT uk_payments_user_idempotency_key UNIQUE (user_id, idempotency_key);
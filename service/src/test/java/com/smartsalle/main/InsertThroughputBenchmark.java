@@ -0,0 +1,101 @@
+package com.smartsalle.main;
+
+import com.smartsalle.main.model.AttendanceRecord;
+import com.smartsalle.main.model.Payment;
+import com.smartsalle.main.model.PaymentMethod;
+import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserRole;
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Mesure le débit d'insertion JPA des check-ins et des paiements (nos écritures les plus fréquentes).
+ * Hors de la suite de tests (le nom ne correspond pas aux motifs de Surefire), lancé explicitement sur une base jetable :
+ * mvn test -Dtest=InsertThroughputBenchmark [-Dbenchmark.rows=20000]
+ * Les lignes créées sont supprimées à la fin de la mesure.
+ */
+@SpringBootTest
+class InsertThroughputBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(InsertThroughputBenchmark.class);
+
+    // Taille des transactions : flush + clear entre deux lots pour garder le contexte de persistance petit
+    private static final int ROWS_PER_TRANSACTION = 1000;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${benchmark.rows:20000}")
+    private int rows;
+
+    @Test
+    void insertThroughput() {
+        User member = transactionTemplate.execute(status -> {
+            String key = UUID.randomUUID().toString();
+            User user = new User();
+            user.setEmail("benchmark-" + key + "@smartsalle.local");
+            user.setOrganization("benchmark-" + key);
+            user.setPhone("benchmark-" + key);
+            user.setPasswordHash("");
+            user.setRole(UserRole.CLIENT);
+            entityManager.persist(user);
+            return user;
+        });
+        try {
+            measure("attendance_records", i -> {
+                // Visites terminées : un seul passage ouvert par membre (uk_attendance_records_user_open)
+                AttendanceRecord attendanceRecord = new AttendanceRecord(member, LocalDateTime.now(), "Benchmark");
+                attendanceRecord.setCheckOutTime(attendanceRecord.getCheckInTime());
+                attendanceRecord.setDurationInMinutes(0);
+                return attendanceRecord;
+            });
+            measure("payments", i -> {
+                Payment payment = new Payment();
+                payment.setUser(member);
+                payment.setAmountMinor(10000);
+                payment.setCurrency("USD");
+                payment.setDueDate(LocalDate.now());
+                payment.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+                payment.setStatus("PENDING");
+                return payment;
+            });
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.createQuery("DELETE FROM AttendanceRecord a WHERE a.user.id = :id").setParameter("id", member.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM Payment p WHERE p.user.id = :id").setParameter("id", member.getId()).executeUpdate();
+                entityManager.createQuery("DELETE FROM User u WHERE u.id = :id").setParameter("id", member.getId()).executeUpdate();
+            });
+        }
+    }
+
+    private void measure(String table, IntFunction<Object> factory) {
+        long start = System.nanoTime();
+        for (int done = 0; done < rows; done += ROWS_PER_TRANSACTION) {
+            int from = done;
+            int count = Math.min(ROWS_PER_TRANSACTION, rows - done);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = from; i < from + count; i++) {
+                    entityManager.persist(factory.apply(i));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        LOGGER.info("Inserted {} rows into {} in {} s ({} rows/s)", rows, table,
+                String.format("%.2f", seconds), String.format("%.0f", rows / seconds));
+    }
+}
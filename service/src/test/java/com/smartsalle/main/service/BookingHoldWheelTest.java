@@ -0,0 +1,77 @@
+package com.smartsalle.main.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingHoldWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void signalsHoldOnlyOnceItsDeadlineHasPassed() {
+        BookingHoldWheel wheel = new BookingHoldWheel(TICK, WHEEL_SIZE);
+        long now = System.currentTimeMillis();
+
+        wheel.schedule(1L, now + 3 * TICK);
+
+        assertTrue(wheel.advance(now + TICK).isEmpty());
+        assertTrue(wheel.advance(now + 2 * TICK).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(now + 4 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keepsHoldsOfLaterRoundsInTheirSlot() {
+        BookingHoldWheel wheel = new BookingHoldWheel(TICK, WHEEL_SIZE);
+        long now = System.currentTimeMillis();
+
+        // Même case que le tick courant + 2, mais deux tours plus tard
+        wheel.schedule(1L, now + 2 * TICK);
+        wheel.schedule(2L, now + (2 + 2 * WHEEL_SIZE) * TICK);
+
+        assertEquals(List.of(1L), wheel.advance(now + 3 * TICK));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(now + (2 + WHEEL_SIZE) * TICK).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(now + (3 + 2 * WHEEL_SIZE) * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancingPastSeveralRoundsExpiresEverythingDue() {
+        BookingHoldWheel wheel = new BookingHoldWheel(TICK, WHEEL_SIZE);
+        long now = System.currentTimeMillis();
+        for (long id = 1; id <= 3 * WHEEL_SIZE; id++) {
+            wheel.schedule(id, now + id * TICK);
+        }
+
+        List<Long> expired = new ArrayList<>(wheel.advance(now + (5 * WHEEL_SIZE) * TICK));
+
+        expired.sort(null);
+        assertEquals(3 * WHEEL_SIZE, expired.size());
+        assertEquals(1L, expired.get(0));
+        assertEquals(3L * WHEEL_SIZE, expired.get(expired.size() - 1));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void holdScheduledAfterItsDeadlineExpiresOnNextAdvance() {
+        BookingHoldWheel wheel = new BookingHoldWheel(TICK, WHEEL_SIZE);
+        long now = System.currentTimeMillis();
+        wheel.advance(now + 5 * TICK);
+
+        // Échéance déjà dépassée (chargement au démarrage, commit tardif) : rangée dans la prochaine case traitée
+        wheel.schedule(1L, now - 10 * TICK);
+        wheel.schedule(2L, now + 4 * TICK);
+
+        List<Long> expired = new ArrayList<>(wheel.advance(now + 6 * TICK));
+        expired.sort(null);
+        assertEquals(List.of(1L, 2L), expired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartsalle.main.service;
+
+import com.smartsalle.main.model.Gym;
+import com.smartsalle.main.model.Session;
+import com.smartsalle.main.model.User;
+import com.smartsalle.main.model.UserRole;
+import com.smartsalle.main.repository.GymRepository;
+import com.smartsalle.main.repository.SessionRepository;
+import com.smartsalle.main.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Réservations simultanées d'une même séance : le compteur booked_count ne dépasse jamais max_participants
+@SpringBootTest
+class BookingServiceConcurrencyTest {
+
+    private static final int MAX_PARTICIPANTS = 5;
+    private static final int MEMBERS = 24;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private GymRepository gymRepository;
+    @Autowired
+    private SessionRepository sessionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Gym gym;
+    private Session session;
+    private final List<User> members = new ArrayList<>();
+
+    @BeforeEach
+    void createSessionAndMembers() {
+        gym = new Gym();
+        gym.setName("Concurrency test gym");
+        gym = gymRepository.save(gym);
+
+        session = new Session();
+        session.setName("Concurrency test session");
+        session.setGym(gym);
+        session.setStartTime(LocalDateTime.now().plusDays(1));
+        session.setEndTime(LocalDateTime.now().plusDays(1).plusHours(1));
+        session.setMaxParticipants(MAX_PARTICIPANTS);
+        session = sessionRepository.save(session);
+
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < MEMBERS; i++) {
+            User member = new User();
+            member.setEmail("booking-" + i + "-" + run + "@test.local");
+            member.setPasswordHash("x");
+            member.setRole(UserRole.CLIENT);
+            member.setOrganization("booking-" + i + "-" + run);
+            member.setPhone("booking-" + i + "-" + run);
+            members.add(userRepository.save(member));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM bookings WHERE session_id = ?", session.getId());
+        sessionRepository.deleteById(session.getId());
+        userRepository.deleteAll(members);
+        gymRepository.deleteById(gym.getId());
+    }
+
+    @Test
+    void concurrentBookingsNeverExceedCapacity() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MEMBERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            Long memberId = members.get(i).getId();
+            boolean hold = i % 2 == 0;
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.bookSession(session.getId(), memberId, hold);
+                    return true;
+                } catch (IllegalStateException e) { // séance complète
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int booked = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                booked++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(MAX_PARTICIPANTS, booked);
+        assertEquals(MAX_PARTICIPANTS, jdbcTemplate.queryForObject(
+                "SELECT booked_count FROM sessions WHERE id = ?", Integer.class, session.getId()));
+        assertEquals(MAX_PARTICIPANTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bookings WHERE session_id = ? AND status IN ('HELD', 'CONFIRMED')", Integer.class, session.getId()));
+    }
+}
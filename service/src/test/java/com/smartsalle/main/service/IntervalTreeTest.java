@@ -0,0 +1,89 @@
+package com.smartsalle.main.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    @Test
+    void halfOpenIntervalsDoNotOverlapAtTheirBounds() {
+        IntervalTree<Long> tree = new IntervalTree<>(Long::compare);
+        tree.insert(10, 20, 1L);
+
+        assertTrue(tree.overlapping(0, 10).isEmpty());
+        assertTrue(tree.overlapping(20, 30).isEmpty());
+        assertEquals(List.of(1L), tree.overlapping(19, 21));
+        assertEquals(List.of(1L), tree.overlapping(12, 15));
+    }
+
+    @Test
+    void removeOnlyMatchesTheExactInterval() {
+        IntervalTree<Long> tree = new IntervalTree<>(Long::compare);
+        tree.insert(10, 20, 1L);
+
+        assertFalse(tree.remove(10, 21, 1L));
+        assertFalse(tree.remove(10, 20, 2L));
+        assertTrue(tree.remove(10, 20, 1L));
+        assertTrue(tree.isEmpty());
+    }
+
+    // Insertions, suppressions et recherches aléatoires comparées à une liste parcourue entièrement
+    @Test
+    void matchesBruteForceOracle() {
+        Random random = new Random(42);
+        IntervalTree<Long> tree = new IntervalTree<>(Long::compare);
+        List<long[]> oracle = new ArrayList<>();
+        long nextValue = 1;
+
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || oracle.isEmpty()) {
+                long start = random.nextInt(1_000);
+                long end = start + 1 + random.nextInt(50);
+                tree.insert(start, end, nextValue);
+                oracle.add(new long[]{start, end, nextValue});
+                nextValue++;
+            } else if (action < 8) {
+                long[] removed = oracle.remove(random.nextInt(oracle.size()));
+                assertTrue(tree.remove(removed[0], removed[1], removed[2]));
+                assertFalse(tree.remove(removed[0], removed[1], removed[2]));
+            } else {
+                long from = random.nextInt(1_050);
+                long to = from + 1 + random.nextInt(100);
+                assertEquals(bruteForceOverlapping(oracle, from, to), tree.overlapping(from, to));
+            }
+            assertEquals(oracle.isEmpty(), tree.isEmpty());
+        }
+
+        for (long[] remaining : oracle) {
+            assertTrue(tree.remove(remaining[0], remaining[1], remaining[2]));
+        }
+        assertTrue(tree.isEmpty());
+    }
+
+    // Même ordre que l'arbre : (début, fin, valeur)
+    private static List<Long> bruteForceOverlapping(List<long[]> intervals, long from, long to) {
+        List<long[]> matches = new ArrayList<>();
+        for (long[] interval : intervals) {
+            if (interval[0] < to && interval[1] > from) {
+                matches.add(interval);
+            }
+        }
+        matches.sort(Comparator.<long[]>comparingLong(interval -> interval[0])
+                .thenComparingLong(interval -> interval[1])
+                .thenComparingLong(interval -> interval[2]));
+        List<Long> values = new ArrayList<>();
+        for (long[] match : matches) {
+            values.add(match[2]);
+        }
+        return values;
+    }
+}